@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import org.cubeengine.butler.Tokenizer.Spans;
+
+/**
+ * An immutable case-insensitive hash index of values like commands or parameters by their alias.
+ * <p>Lookups take any region of a CharSequence, so tokens can be looked up in the commandline
+ * without creating a String or changing its case.</p>
+ *
+ * @param <V> the type of the values
+ */
+public final class AliasIndex<V>
+{
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    public AliasIndex(Map<String, ? extends V> commands)
+    {
+        int capacity = 2;
+        while (capacity < commands.size() * 2)
+        {
+            capacity <<= 1;
+        }
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        for (Entry<String, ? extends V> entry : commands.entrySet())
+        {
+            String key = entry.getKey();
+            int i = hash(key, 0, key.length()) & mask;
+            while (keys[i] != null)
+            {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = entry.getValue();
+        }
+    }
+
+    /**
+     * Returns the value for the alias in given region ignoring case
+     *
+     * @param seq   the sequence containing the alias
+     * @param start the start of the alias
+     * @param end   the end of the alias
+     *
+     * @return the value or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public V get(CharSequence seq, int start, int end)
+    {
+        for (int i = hash(seq, start, end) & mask; keys[i] != null; i = (i + 1) & mask)
+        {
+            if (matches(keys[i], seq, start, end))
+            {
+                return (V)values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value for the token at given index of the invocation ignoring case.
+     * Unquoted tokens are looked up in place in the commandline.
+     *
+     * @param invocation the invocation
+     * @param index      the index of the token
+     *
+     * @return the value or null if not found
+     */
+    public V get(CommandInvocation invocation, int index)
+    {
+        Spans spans = invocation.spans();
+        if (spans.isQuoted(index))
+        {
+            String token = invocation.tokenAt(index);
+            return this.get(token, 0, token.length());
+        }
+        return this.get(invocation.getCommandLine(), spans.start(index), spans.end(index));
+    }
+
+    private static boolean matches(String key, CharSequence seq, int start, int end)
+    {
+        if (key.length() != end - start)
+        {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++)
+        {
+            if (fold(key.charAt(i)) != fold(seq.charAt(start + i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence seq, int start, int end)
+    {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+        {
+            hash = 31 * hash + fold(seq.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Folds the case of given char the same way as {@link String#equalsIgnoreCase(String)}
+     *
+     * @param c the char
+     *
+     * @return the folded char
+     */
+    private static char fold(char c)
+    {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
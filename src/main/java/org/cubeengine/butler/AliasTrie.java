@@ -0,0 +1,291 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+/**
+ * An immutable radix trie of aliases.
+ * <p>Adding or removing an alias copies only the path to it, so older tries stay valid.
+ * Completing a prefix visits only the nodes on the path and below it and yields the aliases sorted.</p>
+ */
+final class AliasTrie
+{
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    static final AliasTrie EMPTY = new AliasTrie(new Node("", false, NO_CHILDREN), 0);
+
+    private final Node root;
+    private final int size;
+
+    private AliasTrie(Node root, int size)
+    {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the amount of aliases in this trie
+     *
+     * @return the amount of aliases
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns a trie containing given alias
+     *
+     * @param alias the alias
+     *
+     * @return the new trie or this trie if it already contains the alias
+     */
+    AliasTrie with(String alias)
+    {
+        Node root = insert(this.root, alias, 0);
+        return root == this.root ? this : new AliasTrie(root, size + 1);
+    }
+
+    /**
+     * Returns a trie without given alias
+     *
+     * @param alias the alias
+     *
+     * @return the new trie or this trie if it does not contain the alias
+     */
+    AliasTrie without(String alias)
+    {
+        Node root = remove(this.root, alias, 0);
+        if (root == this.root)
+        {
+            return this;
+        }
+        return new AliasTrie(root == null ? EMPTY.root : root, size - 1);
+    }
+
+    /**
+     * Adds the aliases starting with given prefix in sorted order until the sink is full
+     *
+     * @param prefix the prefix
+     * @param sink   the sink to add the aliases to
+     */
+    void complete(CharSequence prefix, SuggestionSink sink)
+    {
+        StringBuilder path = new StringBuilder(prefix.length() + 16);
+        Node node = this.root;
+        int i = 0;
+        while (i < prefix.length())
+        {
+            Node child = node.child(prefix.charAt(i));
+            if (child == null)
+            {
+                return;
+            }
+            String edge = child.edge;
+            int length = Math.min(edge.length(), prefix.length() - i);
+            for (int j = 1; j < length; j++)
+            {
+                if (edge.charAt(j) != prefix.charAt(i + j))
+                {
+                    return;
+                }
+            }
+            path.append(edge);
+            i += edge.length();
+            node = child;
+        }
+        collect(node, path, sink);
+    }
+
+    private static void collect(Node node, StringBuilder path, SuggestionSink sink)
+    {
+        if (node.terminal)
+        {
+            sink.add(path.toString());
+        }
+        for (Node child : node.children)
+        {
+            if (sink.isFull())
+            {
+                return;
+            }
+            int length = path.length();
+            path.append(child.edge);
+            collect(child, path, sink);
+            path.setLength(length);
+        }
+    }
+
+    private static Node insert(Node node, String key, int i)
+    {
+        if (i == key.length())
+        {
+            return node.terminal ? node : new Node(node.edge, true, node.children);
+        }
+        int index = node.indexOf(key.charAt(i));
+        if (index < 0)
+        {
+            return node.withChild(-index - 1, new Node(key.substring(i), true, NO_CHILDREN), true);
+        }
+        Node child = node.children[index];
+        String edge = child.edge;
+        int common = 1;
+        while (common < edge.length() && i + common < key.length() && edge.charAt(common) == key.charAt(i + common))
+        {
+            common++;
+        }
+        if (common < edge.length())
+        {
+            // split the edge at the first mismatch
+            Node tail = new Node(edge.substring(common), child.terminal, child.children);
+            child = new Node(edge.substring(0, common), false, new Node[]{tail});
+        }
+        Node inserted = insert(child, key, i + common);
+        return inserted == node.children[index] ? node : node.withChild(index, inserted, false);
+    }
+
+    private static Node remove(Node node, String key, int i)
+    {
+        if (i == key.length())
+        {
+            if (!node.terminal)
+            {
+                return node;
+            }
+            return compact(new Node(node.edge, false, node.children));
+        }
+        int index = node.indexOf(key.charAt(i));
+        if (index < 0)
+        {
+            return node;
+        }
+        Node child = node.children[index];
+        if (!key.startsWith(child.edge, i))
+        {
+            return node;
+        }
+        Node removed = remove(child, key, i + child.edge.length());
+        if (removed == child)
+        {
+            return node;
+        }
+        Node[] children;
+        if (removed == null)
+        {
+            children = new Node[node.children.length - 1];
+            System.arraycopy(node.children, 0, children, 0, index);
+            System.arraycopy(node.children, index + 1, children, index, children.length - index);
+        }
+        else
+        {
+            children = node.children.clone();
+            children[index] = removed;
+        }
+        return compact(new Node(node.edge, node.terminal, children));
+    }
+
+    /**
+     * Drops a node without aliases and merges a node with a single child into it
+     *
+     * @param node the node
+     *
+     * @return the compacted node or null if the node can be dropped
+     */
+    private static Node compact(Node node)
+    {
+        if (node.terminal || node.edge.isEmpty())
+        {
+            return node;
+        }
+        if (node.children.length == 0)
+        {
+            return null;
+        }
+        if (node.children.length == 1)
+        {
+            Node child = node.children[0];
+            return new Node(node.edge + child.edge, child.terminal, child.children);
+        }
+        return node;
+    }
+
+    private static final class Node
+    {
+        private final String edge;
+        private final boolean terminal;
+        private final Node[] children; // sorted by the first char of their edge
+
+        private Node(String edge, boolean terminal, Node[] children)
+        {
+            this.edge = edge;
+            this.terminal = terminal;
+            this.children = children;
+        }
+
+        private int indexOf(char c)
+        {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high)
+            {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].edge.charAt(0);
+                if (midChar < c)
+                {
+                    low = mid + 1;
+                }
+                else if (midChar > c)
+                {
+                    high = mid - 1;
+                }
+                else
+                {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private Node child(char c)
+        {
+            int index = indexOf(c);
+            return index < 0 ? null : children[index];
+        }
+
+        private Node withChild(int index, Node child, boolean insert)
+        {
+            Node[] children;
+            if (insert)
+            {
+                children = new Node[this.children.length + 1];
+                System.arraycopy(this.children, 0, children, 0, index);
+                System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+            }
+            else
+            {
+                children = this.children.clone();
+            }
+            children[index] = child;
+            return new Node(this.edge, this.terminal, children);
+        }
+    }
+}
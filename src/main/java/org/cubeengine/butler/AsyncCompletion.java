@@ -0,0 +1,224 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Combines the suggestions of asynchronous completers under a deadline
+ */
+public final class AsyncCompletion
+{
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, "Butler Completion Deadline");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private AsyncCompletion()
+    {
+    }
+
+    /**
+     * Returns a future completing when all parts completed or the deadline passed.
+     * The suggestions of the parts completed by then are added in order of the parts until the limit is reached.
+     * Parts that did not complete in time are cancelled, as are all parts when the returned future is cancelled.
+     *
+     * @param parts   the suggestions of each completer
+     * @param limit   the maximum amount of suggestions
+     * @param timeout the time to wait for the parts
+     * @param unit    the unit of the timeout
+     *
+     * @return the future suggestions
+     */
+    public static CompletableFuture<List<String>> collect(List<CompletableFuture<List<String>>> parts, int limit,
+                                                          long timeout, TimeUnit unit)
+    {
+        return collect(parts, new SuggestionSink(limit), timeout, unit);
+    }
+
+    /**
+     * Returns a future completing when all parts completed or the deadline passed.
+     * The suggestions of the parts completed by then are added to the sink in order of the parts until it is full.
+     * Parts that did not complete in time are cancelled and the sink is marked volatile, so the partial suggestions
+     * are not cached. When the returned future is cancelled, the sink and all parts are cancelled.
+     *
+     * @param parts   the suggestions of each completer
+     * @param sink    the sink to collect the suggestions in
+     * @param timeout the time to wait for the parts
+     * @param unit    the unit of the timeout
+     *
+     * @return the future suggestions
+     */
+    public static CompletableFuture<List<String>> collect(final List<CompletableFuture<List<String>>> parts,
+                                                          final SuggestionSink sink, long timeout, TimeUnit unit)
+    {
+        final CompletableFuture<List<String>> result = new CompletableFuture<>();
+        final AtomicInteger pending = new AtomicInteger(parts.size());
+        final AtomicBoolean finished = new AtomicBoolean();
+        final Runnable finish = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (!finished.compareAndSet(false, true))
+                {
+                    return;
+                }
+                for (CompletableFuture<List<String>> part : parts)
+                {
+                    if (part.isDone() && !part.isCompletedExceptionally())
+                    {
+                        List<String> suggestions = part.join();
+                        if (suggestions != null)
+                        {
+                            sink.addAll(suggestions);
+                        }
+                    }
+                    else
+                    {
+                        sink.markVolatile();
+                        part.cancel(true);
+                    }
+                }
+                result.complete(sink.toList());
+            }
+        };
+        if (parts.isEmpty())
+        {
+            finish.run();
+            return result;
+        }
+        final ScheduledFuture<?> deadline = TIMER.schedule(finish, timeout, unit);
+        result.whenComplete(new BiConsumer<List<String>, Throwable>()
+        {
+            @Override
+            public void accept(List<String> suggestions, Throwable throwable)
+            {
+                if (result.isCancelled())
+                {
+                    sink.cancel();
+                    deadline.cancel(false);
+                    for (CompletableFuture<List<String>> part : parts)
+                    {
+                        part.cancel(true);
+                    }
+                }
+            }
+        });
+        for (CompletableFuture<List<String>> part : parts)
+        {
+            part.whenComplete(new BiConsumer<List<String>, Throwable>()
+            {
+                @Override
+                public void accept(List<String> suggestions, Throwable throwable)
+                {
+                    if (pending.decrementAndGet() == 0)
+                    {
+                        deadline.cancel(false);
+                        finish.run();
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Runs given task on the executor.
+     * Unlike {@link CompletableFuture#supplyAsync} the thread running the task is interrupted
+     * when the returned future is cancelled, e.g. because the completion was superseded or timed out.
+     *
+     * @param task     the task
+     * @param executor the executor
+     * @param <T>      the type of the result
+     *
+     * @return the future result of the task
+     */
+    public static <T> CompletableFuture<T> interruptible(Callable<T> task, Executor executor)
+    {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final FutureTask<T> futureTask = new FutureTask<T>(task)
+        {
+            @Override
+            protected void done()
+            {
+                if (this.isCancelled())
+                {
+                    return;
+                }
+                try
+                {
+                    result.complete(this.get());
+                }
+                catch (ExecutionException e)
+                {
+                    result.completeExceptionally(e.getCause());
+                }
+                catch (InterruptedException e)
+                {
+                    result.completeExceptionally(e);
+                }
+            }
+        };
+        result.whenComplete(new BiConsumer<T, Throwable>()
+        {
+            @Override
+            public void accept(T value, Throwable throwable)
+            {
+                if (result.isCancelled())
+                {
+                    futureTask.cancel(true);
+                }
+            }
+        });
+        try
+        {
+            executor.execute(futureTask);
+        }
+        catch (RejectedExecutionException e)
+        {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable BK-tree of aliases by their Levenshtein distance.
+ * <p>Adding an alias copies only the path to its new node.
+ * A search skips every subtree that cannot contain an alias within the searched distance.</p>
+ */
+final class BkTree
+{
+    static final BkTree EMPTY = new BkTree(null);
+
+    private final Node root;
+
+    private BkTree(Node root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * Returns a tree containing given alias
+     *
+     * @param alias the alias
+     *
+     * @return the new tree
+     */
+    BkTree with(String alias)
+    {
+        if (root == null)
+        {
+            return new BkTree(new Node(alias, new int[0], new Node[0]));
+        }
+        Node root = insert(this.root, alias);
+        return root == this.root ? this : new BkTree(root);
+    }
+
+    /**
+     * Returns the aliases closest to given word ordered by their distance and then alphabetically
+     *
+     * @param word        the word
+     * @param maxDistance the maximum distance of an alias to the word
+     *
+     * @return the aliases
+     */
+    List<String> closest(String word, int maxDistance)
+    {
+        if (root == null)
+        {
+            return Collections.emptyList();
+        }
+        final List<Match> matches = new ArrayList<>();
+        search(root, word, maxDistance, matches);
+        Collections.sort(matches, new Comparator<Match>()
+        {
+            @Override
+            public int compare(Match o1, Match o2)
+            {
+                int compare = Integer.compare(o1.distance, o2.distance);
+                return compare == 0 ? o1.alias.compareTo(o2.alias) : compare;
+            }
+        });
+        List<String> result = new ArrayList<>(matches.size());
+        for (Match match : matches)
+        {
+            result.add(match.alias);
+        }
+        return result;
+    }
+
+    private static void search(Node node, String word, int maxDistance, List<Match> matches)
+    {
+        int distance = distance(word, node.alias);
+        if (distance <= maxDistance)
+        {
+            matches.add(new Match(node.alias, distance));
+        }
+        for (int i = 0; i < node.distances.length; i++)
+        {
+            if (Math.abs(node.distances[i] - distance) <= maxDistance)
+            {
+                search(node.children[i], word, maxDistance, matches);
+            }
+        }
+    }
+
+    private static Node insert(Node node, String alias)
+    {
+        int distance = distance(alias, node.alias);
+        if (distance == 0)
+        {
+            return node;
+        }
+        int index = Arrays.binarySearch(node.distances, distance);
+        if (index >= 0)
+        {
+            Node child = insert(node.children[index], alias);
+            if (child == node.children[index])
+            {
+                return node;
+            }
+            Node[] children = node.children.clone();
+            children[index] = child;
+            return new Node(node.alias, node.distances, children);
+        }
+        index = -index - 1;
+        int[] distances = new int[node.distances.length + 1];
+        Node[] children = new Node[distances.length];
+        System.arraycopy(node.distances, 0, distances, 0, index);
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.distances, index, distances, index + 1, node.distances.length - index);
+        System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+        distances[index] = distance;
+        children[index] = new Node(alias, new int[0], new Node[0]);
+        return new Node(node.alias, distances, children);
+    }
+
+    /**
+     * Returns the Levenshtein distance of two Strings
+     *
+     * @param a the first String
+     * @param b the second String
+     *
+     * @return the distance
+     */
+    static int distance(String a, String b)
+    {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++)
+        {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++)
+        {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++)
+            {
+                int cost = c == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static final class Node
+    {
+        private final String alias;
+        private final int[] distances; // sorted
+        private final Node[] children;
+
+        private Node(String alias, int[] distances, Node[] children)
+        {
+            this.alias = alias;
+            this.distances = distances;
+            this.children = children;
+        }
+    }
+
+    private static final class Match
+    {
+        private final String alias;
+        private final int distance;
+
+        private Match(String alias, int distance)
+        {
+            this.alias = alias;
+            this.distance = distance;
+        }
+    }
+}
@@ -22,6 +22,9 @@
  */
 package org.cubeengine.butler;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * A command that can be run
  */
@@ -36,6 +39,22 @@ public interface CommandBase extends CommandCompleter
      */
     boolean execute(CommandInvocation invocation);
 
+    /**
+     * Runs the command with given CommandInvocation.
+     * <p>Dispatching and parsing happen on the calling thread.
+     * Commands supporting it are invoked on given Executor.
+     * The invocation must not be reused before the returned future is completed.</p>
+     *
+     * @param invocation the invocation
+     * @param executor   the executor to invoke the command on
+     *
+     * @return the future completing with whether the command ran or not
+     */
+    default CompletableFuture<Boolean> executeAsync(CommandInvocation invocation, Executor executor)
+    {
+        return CompletableFuture.completedFuture(this.execute(invocation));
+    }
+
     /**
      * Returns the Descriptor of this command
      *
@@ -23,6 +23,8 @@
 package org.cubeengine.butler;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides a method that allows getting suggestions for tab completion in commands
@@ -37,4 +39,40 @@ public interface CommandCompleter
      * @return a list of suggestions or null if not applicable
      */
     List<String> getSuggestions(CommandInvocation invocation);
+
+    /**
+     * Adds suggestions based on given CommandCall to the sink until it is full
+     *
+     * @param invocation the invocation
+     * @param sink       the sink
+     *
+     * @return false if not applicable
+     */
+    default boolean getSuggestions(CommandInvocation invocation, SuggestionSink sink)
+    {
+        List<String> suggestions = this.getSuggestions(invocation);
+        if (suggestions == null)
+        {
+            return false;
+        }
+        sink.addAll(suggestions);
+        return true;
+    }
+
+    /**
+     * Returns the future suggestions based on given CommandCall.
+     * Suggestions of completers not done after the timeout are left out.
+     *
+     * @param invocation the invocation
+     * @param limit      the maximum amount of suggestions
+     * @param timeout    the time to wait for slow completers
+     * @param unit       the unit of the timeout
+     *
+     * @return the future list of suggestions, completing with null if not applicable
+     */
+    default CompletableFuture<List<String>> getSuggestionsAsync(CommandInvocation invocation, int limit, long timeout, TimeUnit unit)
+    {
+        SuggestionSink sink = new SuggestionSink(limit);
+        return CompletableFuture.completedFuture(this.getSuggestions(invocation, sink) ? sink.toList() : null);
+    }
 }
@@ -22,10 +22,15 @@
  */
 package org.cubeengine.butler;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import org.cubeengine.butler.Tokenizer.Token;
+import java.util.RandomAccess;
+import org.cubeengine.butler.Tokenizer.Spans;
+import org.cubeengine.butler.Tokenizer.TokenType;
+import org.cubeengine.butler.exception.InputLimitException;
+import org.cubeengine.butler.parameter.ParsedParameters;
 import org.cubeengine.butler.property.PropertyHolder;
 import org.cubeengine.butler.provider.Providers;
 
@@ -37,42 +42,188 @@ import org.cubeengine.butler.provider.Providers;
 public class CommandInvocation extends PropertyHolder
 {
     public static final String SPACE = " ";
-    private final Object commandSource;
-    private final String commandLine;
+    private Object commandSource;
+    private String commandLine;
 
-    private final LinkedList<CommandBase> invocationPath = new LinkedList<>();
-    private final List<String> labels = new ArrayList<>();
+    private final List<CommandBase> invocationPath;
+    private final Labels labels;
+    private final CommandInvocation labelOwner;
 
-    private final List<String> tokens;
+    private final Spans spans;
+    private String[] values;
+    private final List<String> tokens = new TokenList();
     private final Providers providers;
 
+    private ParsedParameters recycledParameters;
+
     private DiagnoseListener listener = NoOpDiagnoseListener.DEFAULT;
 
     private int consumed = 0;
+    private boolean coordinated = false;
+    private Throwable handledException;
 
     public CommandInvocation(Object source, String commandLine, Providers providers)
     {
+        this(source, commandLine, providers, null);
+    }
+
+    /**
+     * Creates an invocation with already tokenized tokens
+     *
+     * @param source      the CommandSource
+     * @param commandLine the commandline
+     * @param providers   the providers
+     * @param spans       the spans of the commandline or null to tokenize it
+     *
+     * @throws InputLimitException if the commandline exceeds the limits of the providers
+     */
+    CommandInvocation(Object source, String commandLine, Providers providers, Spans spans)
+    {
+        checkLength(commandLine, providers);
+        this.invocationPath = new ArrayList<>();
+        this.labels = new Labels();
+        this.labelOwner = this;
         this.commandSource = source;
         this.commandLine = commandLine;
-        this.tokens = tokenize(commandLine);
+        if (spans == null)
+        {
+            spans = Tokenizer.tokenize(commandLine, new Spans(), maxTokens(providers));
+        }
+        else if (spans.size() > maxTokens(providers))
+        {
+            throw InputLimitException.tooManyTokens(maxTokens(providers));
+        }
+        this.spans = spans;
+        this.values = new String[this.spans.size()];
         this.providers = providers;
     }
 
-    protected List<String> tokenize(String commandLine)
+    /**
+     * Creates a view on a part of the commandline of given invocation
+     *
+     * @param parent      the parent invocation
+     * @param commandLine the commandline the spans point into
+     * @param spans       the spans
+     */
+    private CommandInvocation(CommandInvocation parent, String commandLine, Spans spans)
+    {
+        super(parent.properties);
+        this.commandSource = parent.commandSource;
+        this.commandLine = commandLine;
+        this.invocationPath = parent.invocationPath;
+        this.labels = parent.labels;
+        this.labelOwner = parent.labelOwner;
+        this.spans = spans;
+        this.values = new String[spans.size()];
+        this.providers = parent.providers;
+        this.listener = parent.listener;
+        this.coordinated = parent.coordinated;
+    }
+
+    private static void checkLength(String commandLine, Providers providers)
+    {
+        if (providers != null && commandLine.length() > providers.getMaxLineLength())
+        {
+            throw InputLimitException.tooLong(providers.getMaxLineLength());
+        }
+    }
+
+    private static int maxTokens(Providers providers)
+    {
+        return providers == null ? Integer.MAX_VALUE : providers.getMaxTokens();
+    }
+
+    /**
+     * Resets this invocation to a new CommandSource and commandline so it can be reused.
+     * <p>The tokens, the invocation path and all properties are cleared and the listener is reset.
+     * The buffers of this invocation are kept.</p>
+     *
+     * @param source      the CommandSource
+     * @param commandLine the commandline
+     *
+     * @return this invocation
+     *
+     * @throws InputLimitException if the commandline exceeds the limits of the providers
+     */
+    public CommandInvocation reset(Object source, String commandLine)
+    {
+        checkLength(commandLine, providers);
+        this.clear();
+        Tokenizer.tokenize(commandLine, this.spans, maxTokens(providers));
+        if (this.values.length < this.spans.size())
+        {
+            this.values = new String[this.spans.size()];
+        }
+        this.commandSource = source;
+        this.commandLine = commandLine;
+        return this;
+    }
+
+    /**
+     * Drops all references held by this invocation
+     */
+    void clear()
+    {
+        ParsedParameters parsed = (ParsedParameters)this.properties.get(ParsedParameters.class);
+        if (parsed != null)
+        {
+            parsed.value().clear();
+            this.recycledParameters = parsed;
+        }
+        this.properties.clear();
+        this.invocationPath.clear();
+        this.labels.clear();
+        this.spans.clear();
+        Arrays.fill(this.values, null);
+        this.commandSource = null;
+        this.commandLine = "";
+        this.listener = NoOpDiagnoseListener.DEFAULT;
+        this.consumed = 0;
+        this.coordinated = false;
+        this.handledException = null;
+    }
+
+    /**
+     * Sets an empty {@link ParsedParameters} property.
+     * The ParsedParameters of an invocation are recycled when it is reset.
+     *
+     * @return the ParsedParameters
+     */
+    public ParsedParameters newParsedParameters()
     {
-        List<Token> tokens = Tokenizer.tokenize(commandLine);
-        List<String> strings = new ArrayList<>(tokens.size());
-        for (final Token t : tokens)
+        ParsedParameters parsed = this.recycledParameters;
+        this.recycledParameters = null;
+        if (parsed == null)
         {
-            strings.add(t.value);
+            parsed = new ParsedParameters();
         }
-        return strings;
+        this.setProperty(parsed);
+        return parsed;
+    }
+
+    /**
+     * Creates an invocation for tab completion.
+     * <p>The tokens of the previous completion of the same CommandSource are reused
+     * when the commandline extends the previous commandline</p>
+     *
+     * @param source      the CommandSource
+     * @param commandLine the commandline
+     * @param providers   the providers
+     *
+     * @return the invocation
+     */
+    public static CommandInvocation forCompletion(Object source, String commandLine, Providers providers)
+    {
+        checkLength(commandLine, providers);
+        Spans spans = providers.getTokenizer(source).tokenize(commandLine, new Spans());
+        return new CommandInvocation(source, commandLine, providers, spans);
     }
 
     /**
-     * Returns the String the Call got created with
+     * Returns the tokens of this invocation.
+     * The token Strings are only created when they are read.
      *
-     * @return the CallString
+     * @return the tokens
      */
     public List<String> tokens()
     {
@@ -108,6 +259,16 @@ public class CommandInvocation extends PropertyHolder
         return token;
     }
 
+    /**
+     * Consumes given amount of tokens without creating the first token
+     *
+     * @param amount the amount of tokens to consume
+     */
+    public void skip(int amount)
+    {
+        this.consumed += amount;
+    }
+
     /**
      * Resets the consumed parameter counter to given value
      *
@@ -136,7 +297,7 @@ public class CommandInvocation extends PropertyHolder
      */
     public String currentToken()
     {
-        return this.tokens.get(this.consumed);
+        return this.tokenAt(this.consumed);
     }
 
     /**
@@ -148,7 +309,82 @@ public class CommandInvocation extends PropertyHolder
      */
     public String tokenAt(int index)
     {
-        return this.tokens.get(index);
+        String value = this.values[index];
+        if (value == null)
+        {
+            value = Tokenizer.valueOf(this.commandLine, this.spans, index);
+            this.values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether the token at given index equals given String ignoring case.
+     * Unquoted tokens are compared in place without creating the token.
+     *
+     * @param index the index
+     * @param value the String to compare to
+     *
+     * @return true if the token equals the String ignoring case
+     */
+    public boolean tokenEqualsIgnoreCase(int index, String value)
+    {
+        if (this.values[index] != null || this.spans.isQuoted(index))
+        {
+            return this.tokenAt(index).equalsIgnoreCase(value);
+        }
+        int start = this.spans.start(index);
+        int length = this.spans.end(index) - start;
+        return length == value.length() && this.commandLine.regionMatches(true, start, value, 0, length);
+    }
+
+    /**
+     * Returns whether the token at given index starts with given prefix ignoring case.
+     * Unquoted tokens are compared in place without creating the token.
+     *
+     * @param index  the index
+     * @param offset the offset in the token to start comparing at
+     * @param prefix the prefix
+     *
+     * @return true if the token starts with the prefix at given offset ignoring case
+     */
+    public boolean tokenStartsWithIgnoreCase(int index, int offset, String prefix)
+    {
+        if (this.values[index] != null || this.spans.isQuoted(index))
+        {
+            String token = this.tokenAt(index);
+            return token.length() >= offset + prefix.length()
+                && token.regionMatches(true, offset, prefix, 0, prefix.length());
+        }
+        int start = this.spans.start(index) + offset;
+        return this.spans.end(index) - start >= prefix.length()
+            && this.commandLine.regionMatches(true, start, prefix, 0, prefix.length());
+    }
+
+    /**
+     * Returns the length of the token at given index
+     *
+     * @param index the index
+     *
+     * @return the length of the token
+     */
+    public int tokenLength(int index)
+    {
+        if (this.values[index] != null || this.spans.isQuoted(index))
+        {
+            return this.tokenAt(index).length();
+        }
+        return this.spans.end(index) - this.spans.start(index);
+    }
+
+    /**
+     * Returns the spans of the tokens in the commandline
+     *
+     * @return the spans
+     */
+    public Spans spans()
+    {
+        return spans;
     }
 
     /**
@@ -158,7 +394,7 @@ public class CommandInvocation extends PropertyHolder
      */
     public boolean isConsumed()
     {
-        return this.consumed >= this.tokens.size();
+        return this.consumed >= this.spans.size();
     }
 
     /**
@@ -197,7 +433,15 @@ public class CommandInvocation extends PropertyHolder
     public CommandInvocation subInvocation(CommandBase command)
     {
         this.invocationPath.add(command);
-        this.labels.add(this.consume(1));
+        if (this.labelOwner == this)
+        {
+            this.labels.add(this.consumed, null);
+        }
+        else
+        {
+            this.labels.add(-1, this.currentToken());
+        }
+        this.skip(1);
         return this;
     }
 
@@ -208,7 +452,13 @@ public class CommandInvocation extends PropertyHolder
      */
     public List<String> getLabels()
     {
-        return new ArrayList<>(this.labels);
+        List<String> labels = new ArrayList<>(this.labels.size);
+        for (int i = 0; i < this.labels.size; i++)
+        {
+            int index = this.labels.indexes[i];
+            labels.add(index == -1 ? this.labels.strings[i] : this.labelOwner.tokenAt(index));
+        }
+        return labels;
     }
 
     /**
@@ -226,9 +476,106 @@ public class CommandInvocation extends PropertyHolder
         return invocation;
     }
 
+    /**
+     * Consumes the current token and returns a view invocation on its parts separated by given delimiter.
+     * <p>The view shares the properties, the invocation path and the providers with this invocation.
+     * The parts of unquoted tokens are not copied.</p>
+     *
+     * @param delimiter the delimiter
+     *
+     * @return the view invocation
+     */
+    public CommandInvocation split(String delimiter)
+    {
+        int index = this.consumed++;
+        String line = this.commandLine;
+        int start = this.spans.start(index);
+        int end = this.spans.end(index);
+        if (this.spans.isQuoted(index))
+        {
+            line = this.tokenAt(index);
+            start = 0;
+            end = line.length();
+        }
+
+        int delimLength = delimiter.length();
+        int count = 1;
+        if (delimLength != 0)
+        {
+            for (int i = line.indexOf(delimiter, start); i != -1 && i + delimLength <= end; i = line.indexOf(delimiter, i + delimLength))
+            {
+                count++;
+            }
+        }
+        if (count > maxTokens(this.providers))
+        {
+            throw InputLimitException.tooManyTokens(maxTokens(this.providers));
+        }
+
+        Spans parts = new Spans(count);
+        for (int i = 1; i < count; i++)
+        {
+            int next = line.indexOf(delimiter, start);
+            parts.add(start, next, TokenType.PLAIN);
+            start = next + delimLength;
+        }
+        parts.add(start, end, TokenType.PLAIN);
+        return new CommandInvocation(this, line, parts);
+    }
+
+    /**
+     * Creates an invocation of the commandline up to and including the current token followed by a space.
+     * It has the same invocation path and labels as this invocation and its current token is the one after the space.
+     *
+     * @return the new invocation
+     */
+    CommandInvocation prefixInvocation()
+    {
+        String line = this.commandLine.substring(0, this.spans.end(this.consumed)) + SPACE;
+        CommandInvocation prefix = new CommandInvocation(this.commandSource, line, this.providers);
+        prefix.invocationPath.addAll(this.invocationPath);
+        for (String label : this.getLabels())
+        {
+            prefix.labels.add(-1, label);
+        }
+        prefix.consumed = this.consumed;
+        return prefix;
+    }
+
+    /**
+     * Returns the last exception the exception handler handled while executing this invocation.
+     * A command whose exception was handled still counts as having run.
+     *
+     * @return the exception or null
+     */
+    public Throwable getHandledException()
+    {
+        return handledException;
+    }
+
+    void setHandledException(Throwable handledException)
+    {
+        this.handledException = handledException;
+    }
+
+    /**
+     * Returns whether the completion of this invocation is run by the {@link CompletionCoordinator}
+     *
+     * @return true if coordinated
+     */
+    boolean isCoordinated()
+    {
+        return coordinated;
+    }
+
+    void setCoordinated(boolean coordinated)
+    {
+        this.coordinated = coordinated;
+    }
+
     public CommandBase getCommand()
     {
-        return this.invocationPath.getLast();
+        return this.invocationPath.get(this.invocationPath.size() - 1);
     }
 
     public DiagnoseListener getListener()
@@ -241,4 +588,61 @@ public class CommandInvocation extends PropertyHolder
         this.listener = listener;
         return this;
     }
+
+    private class TokenList extends AbstractList<String> implements RandomAccess
+    {
+        @Override
+        public String get(int index)
+        {
+            return tokenAt(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return spans.size();
+        }
+    }
+
+    /**
+     * The labels of an invocation and its views.
+     * Labels in the commandline of the labelOwner are kept as token indexes.
+     */
+    private static final class Labels
+    {
+        private int[] indexes = new int[4]; // token indexes of the labelOwner or -1
+        private String[] strings; // the labels without a token index
+        private int size = 0;
+
+        private void add(int index, String label)
+        {
+            if (size == indexes.length)
+            {
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            indexes[size] = index;
+            if (label != null)
+            {
+                if (strings == null)
+                {
+                    strings = new String[indexes.length];
+                }
+                else if (strings.length < indexes.length)
+                {
+                    strings = Arrays.copyOf(strings, indexes.length);
+                }
+                strings[size] = label;
+            }
+            size++;
+        }
+
+        private void clear()
+        {
+            if (strings != null)
+            {
+                Arrays.fill(strings, null);
+            }
+            size = 0;
+        }
+    }
 }
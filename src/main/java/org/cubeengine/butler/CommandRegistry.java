@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An immutable snapshot of the commands of a dispatcher by their lowercase alias.
+ * <p>Changes create a new registry so readers never observe a partially applied change.</p>
+ */
+final class CommandRegistry
+{
+    static final CommandRegistry EMPTY = new CommandRegistry(Collections.<String, CommandBase>emptyMap(), AliasTrie.EMPTY);
+
+    private final Map<String, CommandBase> commands;
+    private final AliasIndex<CommandBase> index;
+    private final AliasTrie aliases;
+    private BkTree similar; // built on first use
+    private int removed; // aliases in the BK-tree that are no longer registered
+
+    private CommandRegistry(Map<String, CommandBase> commands, AliasTrie aliases)
+    {
+        this.commands = commands;
+        this.index = new AliasIndex<>(commands);
+        this.aliases = aliases;
+    }
+
+    /**
+     * Returns a registry with given commands added
+     *
+     * @param added the commands by their lowercase alias
+     *
+     * @return the new registry
+     */
+    CommandRegistry with(Map<String, CommandBase> added)
+    {
+        Map<String, CommandBase> commands = new HashMap<>(this.commands);
+        commands.putAll(added);
+        AliasTrie aliases = this.aliases;
+        for (String alias : added.keySet())
+        {
+            aliases = aliases.with(alias);
+        }
+        CommandRegistry registry = new CommandRegistry(Collections.unmodifiableMap(commands), aliases);
+        BkTree similar = this.similar;
+        if (similar != null)
+        {
+            for (String alias : added.keySet())
+            {
+                similar = similar.with(alias);
+            }
+            registry.similar = similar;
+            registry.removed = this.removed;
+        }
+        return registry;
+    }
+
+    /**
+     * Returns a registry with every alias of given command removed
+     *
+     * @param command the command to remove
+     *
+     * @return the new registry or this registry if the command was not registered
+     */
+    CommandRegistry without(CommandBase command)
+    {
+        Map<String, CommandBase> commands = new HashMap<>(this.commands);
+        AliasTrie aliases = this.aliases;
+        int removed = 0;
+        for (Iterator<Entry<String, CommandBase>> it = commands.entrySet().iterator(); it.hasNext(); )
+        {
+            Entry<String, CommandBase> entry = it.next();
+            if (entry.getValue().equals(command))
+            {
+                it.remove();
+                aliases = aliases.without(entry.getKey());
+                removed++;
+            }
+        }
+        if (removed == 0)
+        {
+            return this;
+        }
+        CommandRegistry registry = new CommandRegistry(Collections.unmodifiableMap(commands), aliases);
+        BkTree similar = this.similar;
+        if (similar != null)
+        {
+            // removed aliases stay in the tree and are filtered when searching
+            registry.similar = similar;
+            registry.removed = this.removed + removed;
+        }
+        return registry;
+    }
+
+    /**
+     * Returns the command for given alias ignoring case
+     *
+     * @param alias the alias
+     *
+     * @return the command or null if not found
+     */
+    CommandBase get(CharSequence alias)
+    {
+        return this.index.get(alias, 0, alias.length());
+    }
+
+    /**
+     * Returns the command for the alias in given region ignoring case
+     *
+     * @param seq   the sequence containing the alias
+     * @param start the start of the alias
+     * @param end   the end of the alias
+     *
+     * @return the command or null if not found
+     */
+    CommandBase get(CharSequence seq, int start, int end)
+    {
+        return this.index.get(seq, start, end);
+    }
+
+    /**
+     * Adds the aliases starting with given lowercase prefix in sorted order until the sink is full
+     *
+     * @param prefix the prefix
+     * @param sink   the sink to add the aliases to
+     */
+    void complete(CharSequence prefix, SuggestionSink sink)
+    {
+        this.aliases.complete(prefix, sink);
+    }
+
+    /**
+     * Returns the aliases closest to given lowercase word ordered by their distance.
+     * <p>The BK-tree is rebuilt once it holds more removed aliases than registered ones.</p>
+     *
+     * @param word        the word
+     * @param maxDistance the maximum edit distance
+     *
+     * @return the aliases
+     */
+    List<String> similar(String word, int maxDistance)
+    {
+        BkTree similar = this.similar;
+        if (similar == null || this.removed > this.commands.size())
+        {
+            similar = BkTree.EMPTY;
+            for (String alias : this.commands.keySet())
+            {
+                similar = similar.with(alias);
+            }
+            this.removed = 0;
+            this.similar = similar;
+        }
+        List<String> closest = similar.closest(word, maxDistance);
+        for (Iterator<String> it = closest.iterator(); it.hasNext(); )
+        {
+            if (!this.commands.containsKey(it.next()))
+            {
+                it.remove();
+            }
+        }
+        return closest;
+    }
+
+    Collection<CommandBase> commands()
+    {
+        return this.commands.values();
+    }
+}
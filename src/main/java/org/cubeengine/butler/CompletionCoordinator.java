@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs completions so that a new completion of a CommandSource cancels its previous one that is still running.
+ * <p>The completions of a {@link DispatcherCommand} are run by the coordinator of its Providers.
+ * Synchronous completions are cancelled through their {@link SuggestionSink#cancel() sink},
+ * asynchronous completions by cancelling the futures of their completers.
+ * Completers blocking on slow services should return a future from {@link AsyncCompletion#interruptible}
+ * to be interrupted when cancelled.</p>
+ */
+public class CompletionCoordinator
+{
+    private static final Object NO_SOURCE = new Object();
+
+    private final ConcurrentMap<Object, Request> running = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the suggestions of given command, cancelling the previous completion of the same CommandSource
+     *
+     * @param command    the command
+     * @param invocation the invocation
+     * @param limit      the maximum amount of suggestions
+     *
+     * @return the suggestions or null if not applicable or superseded by a newer completion
+     */
+    public List<String> getSuggestions(CommandBase command, CommandInvocation invocation, int limit)
+    {
+        SuggestionSink sink = new SuggestionSink(limit);
+        Request request = new Request(sink, null);
+        Object key = this.begin(invocation, request);
+        invocation.setCoordinated(true);
+        try
+        {
+            boolean applicable = command.getSuggestions(invocation, sink);
+            return applicable && !sink.isCancelled() ? sink.toList() : null;
+        }
+        finally
+        {
+            invocation.setCoordinated(false);
+            this.running.remove(key, request);
+        }
+    }
+
+    /**
+     * Returns the future suggestions of given command, cancelling the previous completion of the same CommandSource.
+     * The future is cancelled when it is superseded by a newer completion.
+     *
+     * @param command    the command
+     * @param invocation the invocation
+     * @param limit      the maximum amount of suggestions
+     * @param timeout    the time to wait for slow completers
+     * @param unit       the unit of the timeout
+     *
+     * @return the future suggestions
+     */
+    public CompletableFuture<List<String>> getSuggestionsAsync(CommandBase command, CommandInvocation invocation,
+                                                               int limit, long timeout, TimeUnit unit)
+    {
+        CompletableFuture<List<String>> future;
+        invocation.setCoordinated(true);
+        try
+        {
+            future = command.getSuggestionsAsync(invocation, limit, timeout, unit);
+        }
+        finally
+        {
+            invocation.setCoordinated(false);
+        }
+        if (future.isDone())
+        {
+            this.cancel(invocation.getCommandSource());
+            return future;
+        }
+        final Request request = new Request(null, future);
+        final Object key = this.begin(invocation, request);
+        future.whenComplete(new BiConsumer<List<String>, Throwable>()
+        {
+            @Override
+            public void accept(List<String> suggestions, Throwable throwable)
+            {
+                running.remove(key, request);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancels the running completion of given CommandSource
+     *
+     * @param source the CommandSource
+     */
+    public void cancel(Object source)
+    {
+        Request previous = this.running.remove(source == null ? NO_SOURCE : source);
+        if (previous != null)
+        {
+            previous.cancel();
+        }
+    }
+
+    private Object begin(CommandInvocation invocation, Request request)
+    {
+        Object source = invocation.getCommandSource();
+        Object key = source == null ? NO_SOURCE : source;
+        Request previous = this.running.put(key, request);
+        if (previous != null)
+        {
+            previous.cancel();
+        }
+        return key;
+    }
+
+    private static final class Request
+    {
+        private final SuggestionSink sink;
+        private final CompletableFuture<List<String>> future;
+
+        private Request(SuggestionSink sink, CompletableFuture<List<String>> future)
+        {
+            this.sink = sink;
+            this.future = future;
+        }
+
+        private void cancel()
+        {
+            if (this.sink != null)
+            {
+                this.sink.cancel();
+            }
+            if (this.future != null)
+            {
+                this.future.cancel(true);
+            }
+        }
+    }
+}
@@ -34,11 +34,10 @@ public class CompletionHelper
         {
             return choices;
         }
-        String lowerPrefix = prefix.toLowerCase();
         List<String> suggestions = new ArrayList<>();
         for (final String s : choices)
         {
-            if (s.toLowerCase().startsWith(lowerPrefix))
+            if (s.regionMatches(true, 0, prefix, 0, prefix.length()))
             {
                 suggestions.add(s);
             }
@@ -53,4 +52,26 @@ public class CompletionHelper
         }
         return suggestions;
     }
+
+    /**
+     * Adds the choices starting with given prefix ignoring case until the sink is full
+     *
+     * @param prefix  the prefix
+     * @param choices the choices
+     * @param sink    the sink
+     */
+    public static void complete(String prefix, Iterable<String> choices, SuggestionSink sink)
+    {
+        for (final String s : choices)
+        {
+            if (sink.isFull())
+            {
+                return;
+            }
+            if (s.regionMatches(true, 0, prefix, 0, prefix.length()))
+            {
+                sink.add(s);
+            }
+        }
+    }
 }
@@ -22,6 +22,9 @@
  */
 package org.cubeengine.butler;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -38,6 +41,23 @@ public interface Dispatcher extends CommandBase
      */
     boolean addCommand(CommandBase command);
 
+    /**
+     * Adds commands to this dispatcher
+     *
+     * @param commands the commands to add
+     *
+     * @return true if the commands are now registered
+     */
+    default boolean addCommands(Collection<? extends CommandBase> commands)
+    {
+        boolean added = true;
+        for (CommandBase command : commands)
+        {
+            added &= this.addCommand(command);
+        }
+        return added;
+    }
+
     /**
      * Removes a command from this dispatcher
      *
@@ -80,4 +100,45 @@ public interface Dispatcher extends CommandBase
      * @return the commandManager
      */
     CommandManager getManager();
+
+    /**
+     * Returns the suggestions for a commandline typed one key at a time by given CommandSource.
+     * The tokens of the previous completion of the CommandSource are reused when the commandline extends it.
+     *
+     * @param source      the CommandSource
+     * @param commandLine the commandline
+     *
+     * @return the suggestions or null if not applicable or superseded
+     */
+    default List<String> getSuggestions(Object source, String commandLine)
+    {
+        return this.getSuggestions(CommandInvocation.forCompletion(source, commandLine, this.getManager().getProviders()));
+    }
+
+    /**
+     * Executes a batch of invocations in order.
+     * <p>An exception not handled by the exception handler does not stop the batch.
+     * Exceptions passed to the exception handler are recorded in the results as well.</p>
+     *
+     * @param invocations the invocations
+     *
+     * @return the results in the order of the invocations
+     */
+    default List<ExecutionResult> executeAll(Collection<CommandInvocation> invocations)
+    {
+        List<ExecutionResult> results = new ArrayList<>(invocations.size());
+        for (CommandInvocation invocation : invocations)
+        {
+            try
+            {
+                boolean ran = this.execute(invocation);
+                results.add(new ExecutionResult(invocation, ran, null, invocation.getHandledException()));
+            }
+            catch (RuntimeException e)
+            {
+                results.add(new ExecutionResult(invocation, false, e, invocation.getHandledException()));
+            }
+        }
+        return results;
+    }
 }
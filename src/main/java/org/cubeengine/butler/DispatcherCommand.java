@@ -24,17 +24,27 @@ package org.cubeengine.butler;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.cubeengine.butler.Tokenizer.Spans;
 import org.cubeengine.butler.alias.AliasCommand;
 import org.cubeengine.butler.alias.AliasConfiguration;
 import org.cubeengine.butler.exception.MissingCommandDescriptorException;
 import org.cubeengine.butler.exception.UnhandledException;
+import org.cubeengine.butler.exception.UnknownCommandException;
 import org.cubeengine.butler.filter.Filter;
+import org.cubeengine.butler.filter.FilterException;
 
 /**
  * A Command that can dispatch sub-commands
@@ -43,7 +53,7 @@ public class DispatcherCommand implements Dispatcher
 {
     private final CommandDescriptor descriptor;
 
-    private final Map<String, CommandBase> commands = new HashMap<>();
+    private volatile CommandRegistry commands = CommandRegistry.EMPTY;
 
     public DispatcherCommand(CommandDescriptor descriptor)
     {
@@ -54,75 +64,149 @@ public class DispatcherCommand implements Dispatcher
         this.descriptor = descriptor;
     }
 
+    /**
+     * Adds a command to this dispatcher.
+     * <p>The sub commands of the command and its aliases in this dispatcher are registered
+     * before the command becomes visible to readers of this dispatcher.</p>
+     *
+     * @param command the command to add
+     *
+     * @return true if the command is now registered
+     */
     @Override
     public boolean addCommand(CommandBase command)
     {
-        CommandDescriptor descriptor = command.getDescriptor();
-
-        if (!(descriptor instanceof Dispatchable))
-        {
-            throw new IllegalArgumentException("The given command is not dispatchable");
-        }
-
-        // Remove command from old dispatcher and set this one
-        Dispatcher oldDispatcher = descriptor.getDispatcher();
-        if (oldDispatcher != null)
-        {
-            oldDispatcher.removeCommand(command);
-        }
-        ((Dispatchable)descriptor).setDispatcher(this);
+        return this.addCommands(Collections.singletonList(command));
+    }
 
-        this.commands.put(descriptor.getName().toLowerCase(), command);
-        if (!(command instanceof AliasCommand))
+    /**
+     * Adds commands to this dispatcher.
+     * <p>All commands, their sub commands and their aliases in this dispatcher become visible
+     * to readers of this dispatcher at once. The registry is copied only once for all commands.</p>
+     *
+     * @param commands the commands to add
+     *
+     * @return true if the commands are now registered
+     */
+    @Override
+    public boolean addCommands(Collection<? extends CommandBase> commands)
+    {
+        Map<String, CommandBase> staged = new HashMap<>();
+        Map<AliasCommand, Dispatcher> foreignAliases = new LinkedHashMap<>();
+        for (CommandBase command : commands)
         {
+            this.stage(staged, command);
 
-            for (AliasConfiguration alias : descriptor.getAliases())
+            if (!(command instanceof AliasCommand))
             {
-                if (alias.getDispatcher() == null)
-                {
-                    this.addCommand(new AliasCommand(alias, command));
-                }
-                else
+                for (AliasConfiguration alias : command.getDescriptor().getAliases())
                 {
-                    CommandBase aliasDispatcher = getManager().getCommand(alias.getDispatcher());
-                    if (aliasDispatcher == null || !(aliasDispatcher instanceof Dispatcher))
+                    if (alias.getDispatcher() == null)
+                    {
+                        this.stage(staged, new AliasCommand(alias, command));
+                    }
+                    else
                     {
-                        throw new IllegalArgumentException("Cannot add alias to dispatcher! Command missing or is not a dispatcher.");
+                        CommandBase aliasDispatcher = getManager().getCommand(alias.getDispatcher());
+                        if (aliasDispatcher == null || !(aliasDispatcher instanceof Dispatcher))
+                        {
+                            throw new IllegalArgumentException("Cannot add alias to dispatcher! Command missing or is not a dispatcher.");
+                        }
+                        foreignAliases.put(new AliasCommand(alias, command), (Dispatcher)aliasDispatcher);
                     }
-                    ((Dispatcher)aliasDispatcher).addCommand(new AliasCommand(alias, command));
                 }
             }
+
+            if (command instanceof ContainerCommand)
+            {
+                ((ContainerCommand)command).registerSubCommands();
+            }
+        }
+
+        synchronized (this)
+        {
+            this.commands = this.commands.with(staged);
         }
+        this.commandsChanged();
 
-        if (command instanceof ContainerCommand)
+        for (Entry<AliasCommand, Dispatcher> alias : foreignAliases.entrySet())
         {
-            ((ContainerCommand)command).registerSubCommands();
+            alias.getValue().addCommand(alias.getKey());
         }
 
         return true;
     }
 
+    /**
+     * Moves the command to this dispatcher and stages it under its name
+     *
+     * @param staged  the staged commands
+     * @param command the command
+     */
+    private void stage(Map<String, CommandBase> staged, CommandBase command)
+    {
+        CommandDescriptor descriptor = command.getDescriptor();
+
+        if (!(descriptor instanceof Dispatchable))
+        {
+            throw new IllegalArgumentException("The given command is not dispatchable");
+        }
+
+        // Remove command from old dispatcher and set this one
+        Dispatcher oldDispatcher = descriptor.getDispatcher();
+        if (oldDispatcher != null)
+        {
+            oldDispatcher.removeCommand(command);
+        }
+        ((Dispatchable)descriptor).setDispatcher(this);
+
+        staged.put(descriptor.getName().toLowerCase(), command);
+    }
+
     @Override
     public boolean removeCommand(CommandBase command)
     {
-        boolean removed = this.commands.values().removeAll(Collections.singleton(command));
+        boolean removed;
+        synchronized (this)
+        {
+            CommandRegistry commands = this.commands;
+            this.commands = commands.without(command);
+            removed = this.commands != commands;
+        }
         if (removed)
         {
             ((Dispatchable)command.getDescriptor()).setDispatcher(null);
+            this.commandsChanged();
         }
         return removed;
     }
 
+    /**
+     * Notifies the Providers of the CommandManager this dispatcher is registered in about changed commands
+     */
+    private void commandsChanged()
+    {
+        CommandBase command = this;
+        while (command != null && !(command instanceof CommandManager))
+        {
+            command = command.getDescriptor().getDispatcher();
+        }
+        if (command != null)
+        {
+            ((CommandManager)command).getProviders().commandsChanged();
+        }
+    }
+
     @Override
     public Set<CommandBase> getCommands()
     {
-        return Collections.unmodifiableSet(new HashSet<>(this.commands.values()));
+        return Collections.unmodifiableSet(new HashSet<>(this.commands.commands()));
     }
 
     @Override
     public boolean hasCommand(String alias)
     {
-        return this.commands.containsKey(alias.toLowerCase());
+        return this.commands.get(alias) != null;
     }
 
     @Override
@@ -132,7 +216,7 @@ public class DispatcherCommand implements Dispatcher
         {
             return this;
         }
-        CommandBase cmd = this.commands.get(alias[0].toLowerCase());
+        CommandBase cmd = this.commands.get(alias[0]);
         if (alias.length == 1)
         {
             return cmd;
@@ -152,13 +236,13 @@ public class DispatcherCommand implements Dispatcher
             this.checkInvocation(invocation);
             if (!invocation.isConsumed())
             {
-                CommandBase command = this.getCommand(invocation.currentToken());
+                CommandBase command = this.dispatch(invocation);
                 if (command != null)
                 {
                     return command.execute(invocation.subInvocation(command));
                 }
             }
-            return this.selfExecute(invocation);
+            return this.unknownCommand(invocation, this.selfExecute(invocation));
         }
         catch (Exception e)
         {
@@ -167,6 +251,54 @@ public class DispatcherCommand implements Dispatcher
         }
     }
 
+    @Override
+    public final CompletableFuture<Boolean> executeAsync(final CommandInvocation invocation, Executor executor)
+    {
+        try
+        {
+            this.checkInvocation(invocation);
+            if (!invocation.isConsumed())
+            {
+                CommandBase command = this.dispatch(invocation);
+                if (command != null)
+                {
+                    return command.executeAsync(invocation.subInvocation(command), executor);
+                }
+            }
+            return this.selfExecuteAsync(invocation, executor).thenApply(new Function<Boolean, Boolean>()
+            {
+                @Override
+                public Boolean apply(Boolean ran)
+                {
+                    return unknownCommand(invocation, ran);
+                }
+            });
+        }
+        catch (Exception e)
+        {
+            this.handleException(e, invocation);
+            return CompletableFuture.completedFuture(true);
+        }
+    }
+
+    /**
+     * Returns the command to dispatch the current token of given invocation to
+     *
+     * @param invocation the invocation
+     *
+     * @return the command or null if not found
+     */
+    private CommandBase dispatch(CommandInvocation invocation)
+    {
+        Spans spans = invocation.spans();
+        int index = invocation.consumed();
+        if (spans.isQuoted(index))
+        {
+            return this.commands.get(invocation.currentToken());
+        }
+        return this.commands.get(invocation.getCommandLine(), spans.start(index), spans.end(index));
+    }
+
     /**
      * Checks if given invocation is allowed to be executed
      *
@@ -191,6 +323,7 @@ public class DispatcherCommand implements Dispatcher
         {
             throw new UnhandledException(e);
         }
+        invocation.setHandledException(e);
     }
 
     /**
@@ -204,40 +337,184 @@ public class DispatcherCommand implements Dispatcher
         return false;
     }
 
-    @Override
-    public List<String> getSuggestions(CommandInvocation invocation)
+    /**
+     * Passes an {@link UnknownCommandException} to the exception handler if the command did not run
+     * and a token is left that no command was found for
+     *
+     * @param invocation the invocation
+     * @param ran        whether the command ran
+     *
+     * @return whether the command ran
+     */
+    private boolean unknownCommand(CommandInvocation invocation, boolean ran)
+    {
+        if (!ran && !invocation.isConsumed())
+        {
+            UnknownCommandException e = new UnknownCommandException(this, invocation, invocation.currentToken());
+            invocation.providers().getExceptionHandler().handleException(e, this, invocation);
+            invocation.setHandledException(e);
+        }
+        return ran;
+    }
+
+    /**
+     * Is called after no command could be found to dispatch when executing asynchronously
+     *
+     * @param invocation the invocation
+     * @param executor   the executor to run the command on
+     * @return the future completing with whether the command ran successfully
+     */
+    protected CompletableFuture<Boolean> selfExecuteAsync(CommandInvocation invocation, Executor executor)
+    {
+        return CompletableFuture.completedFuture(this.selfExecute(invocation));
+    }
+
+    /**
+     * Returns the aliases most similar to given alias whose commands pass their filters for given invocation
+     *
+     * @param alias      the alias
+     * @param invocation the invocation
+     * @param limit      the maximum amount of aliases
+     *
+     * @return the aliases ordered by their similarity
+     */
+    public List<String> getSimilarAliases(String alias, CommandInvocation invocation, int limit)
     {
-        List<String> tokens = invocation.tokens();
+        String word = alias.toLowerCase();
+        int maxDistance = Math.min(3, Math.max(1, word.length() / 3));
+        CommandRegistry commands = this.commands;
         List<String> result = new ArrayList<>();
-        if (invocation.isConsumed())
+        for (String similar : commands.similar(word, maxDistance))
         {
-            for (CommandBase command : this.getCommands())
+            if (result.size() == limit)
             {
-                result.add(command.getDescriptor().getName());
+                break;
             }
+            CommandDescriptor descriptor = commands.get(similar).getDescriptor();
+            if (descriptor instanceof Filter)
+            {
+                try
+                {
+                    ((Filter)descriptor).run(invocation);
+                }
+                catch (FilterException e)
+                {
+                    continue;
+                }
+            }
+            result.add(similar);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the suggestions for given invocation.
+     * The completion is run by the {@link CompletionCoordinator} and cancelled when the CommandSource completes again.
+     *
+     * @param invocation the invocation
+     *
+     * @return the suggestions or null if not applicable or superseded
+     */
+    @Override
+    public List<String> getSuggestions(CommandInvocation invocation)
+    {
+        if (invocation.isCoordinated() || invocation.providers() == null)
+        {
+            SuggestionSink sink = new SuggestionSink();
+            return this.getSuggestions(invocation, sink) ? sink.toList() : null;
+        }
+        return invocation.providers().getCompletionCoordinator().getSuggestions(this, invocation, SuggestionSink.UNLIMITED);
+    }
+
+    @Override
+    public boolean getSuggestions(CommandInvocation invocation, SuggestionSink sink)
+    {
+        if (invocation.isConsumed() || invocation.tokens().size() - invocation.consumed() == 1)
+        {
+            this.completeCommands(invocation, sink);
+            return true;
+        }
+        CommandBase command = this.dispatch(invocation);
+        if (command == null)
+        {
+            return false; // Nothing to tab
+        }
+        return command.getSuggestions(invocation.subInvocation(command), sink);
+    }
+
+    /**
+     * Returns the future suggestions for given invocation.
+     * The completion is run by the {@link CompletionCoordinator} and cancelled when the CommandSource completes again.
+     *
+     * @param invocation the invocation
+     * @param limit      the maximum amount of suggestions
+     * @param timeout    the time to wait for slow completers
+     * @param unit       the unit of the timeout
+     *
+     * @return the future suggestions
+     */
+    @Override
+    public final CompletableFuture<List<String>> getSuggestionsAsync(CommandInvocation invocation, int limit, long timeout, TimeUnit unit)
+    {
+        if (invocation.isCoordinated() || invocation.providers() == null)
+        {
+            return this.suggestAsync(invocation, limit, timeout, unit);
+        }
+        return invocation.providers().getCompletionCoordinator().getSuggestionsAsync(this, invocation, limit, timeout, unit);
+    }
+
+    /**
+     * Returns the future suggestions for given invocation without coordination
+     *
+     * @param invocation the invocation
+     * @param limit      the maximum amount of suggestions
+     * @param timeout    the time to wait for slow completers
+     * @param unit       the unit of the timeout
+     *
+     * @return the future suggestions
+     */
+    protected CompletableFuture<List<String>> suggestAsync(CommandInvocation invocation, int limit, long timeout, TimeUnit unit)
+    {
+        if (invocation.isConsumed() || invocation.tokens().size() - invocation.consumed() == 1)
+        {
+            SuggestionSink sink = new SuggestionSink(limit);
+            this.completeCommands(invocation, sink);
+            return CompletableFuture.completedFuture(sink.toList());
         }
-        else if (tokens.size() - invocation.consumed() == 1)
+        CommandBase command = this.dispatch(invocation);
+        if (command == null)
         {
-            String curToken = invocation.currentToken().toLowerCase();
-            for (String alias : this.commands.keySet())
+            return CompletableFuture.completedFuture(null); // Nothing to tab
+        }
+        return command.getSuggestionsAsync(invocation.subInvocation(command), limit, timeout, unit);
+    }
+
+    private void completeCommands(CommandInvocation invocation, SuggestionSink sink)
+    {
+        if (invocation.isConsumed())
+        {
+            for (CommandBase command : this.getCommands())
             {
-                if (alias.startsWith(curToken))
+                if (sink.isFull())
                 {
-                    result.add(alias);
+                    break;
                 }
+                sink.add(command.getDescriptor().getName());
             }
         }
         else
         {
-            String curToken = invocation.currentToken();
-            CommandBase command = this.getCommand(curToken);
-            if (command == null)
+            this.commands.complete(invocation.currentToken().toLowerCase(), sink);
+            SuggestionPrefetcher prefetcher = invocation.providers().getSuggestionPrefetcher();
+            if (prefetcher != null)
             {
-                return null; // Nothing to tab
+                CommandBase command = this.dispatch(invocation);
+                if (command != null)
+                {
+                    prefetcher.prefetch(command, invocation); // the first argument is likely completed next
+                }
             }
-            return command.getSuggestions(invocation.subInvocation(command));
         }
-        return result;
     }
 
     @Override
@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+/**
+ * The outcome of executing a single invocation of a batch
+ */
+public class ExecutionResult
+{
+    private final CommandInvocation invocation;
+    private final boolean ran;
+    private final RuntimeException exception;
+    private final Throwable handledException;
+
+    public ExecutionResult(CommandInvocation invocation, boolean ran, RuntimeException exception)
+    {
+        this(invocation, ran, exception, invocation.getHandledException());
+    }
+
+    public ExecutionResult(CommandInvocation invocation, boolean ran, RuntimeException exception, Throwable handledException)
+    {
+        this.invocation = invocation;
+        this.ran = ran;
+        this.exception = exception;
+        this.handledException = handledException;
+    }
+
+    /**
+     * Returns the invocation
+     *
+     * @return the invocation
+     */
+    public CommandInvocation getInvocation()
+    {
+        return invocation;
+    }
+
+    /**
+     * Returns whether the command ran
+     *
+     * @return true if the command ran
+     */
+    public boolean hasRun()
+    {
+        return ran;
+    }
+
+    /**
+     * Returns the exception that was not handled while executing the invocation
+     *
+     * @return the exception or null
+     */
+    public RuntimeException getException()
+    {
+        return exception;
+    }
+
+    /**
+     * Returns the exception the exception handler handled while executing the invocation
+     *
+     * @return the exception or null
+     */
+    public Throwable getHandledException()
+    {
+        return handledException;
+    }
+
+    @Override
+    public String toString()
+    {
+        if (exception != null)
+        {
+            return invocation.getCommandLine() + " -> " + exception;
+        }
+        if (handledException != null)
+        {
+            return invocation.getCommandLine() + " -> " + ran + " (" + handledException + ")";
+        }
+        return invocation.getCommandLine() + " -> " + ran;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import org.cubeengine.butler.Tokenizer.Spans;
+import org.cubeengine.butler.Tokenizer.TokenType;
+
+import static java.lang.Character.isWhitespace;
+import static org.cubeengine.butler.Tokenizer.DOUBLE_QUOTE;
+import static org.cubeengine.butler.Tokenizer.ESCAPE;
+import static org.cubeengine.butler.Tokenizer.SINGLE_QUOTE;
+
+/**
+ * Tokenizes commandlines that are typed one key at a time e.g. for tab completion.
+ * <p>When a commandline extends the previously tokenized one only the appended part is scanned.
+ * Tokens before the last token and before an unterminated quote cannot change by appending,
+ * an unterminated quote is resumed where the last search for its closing quote stopped.</p>
+ */
+public class IncrementalTokenizer
+{
+    private final Spans spans = new Spans();
+    /**
+     * position and span index of the first unterminated single and double quote
+     */
+    private final int[] open = {-1, -1, -1, -1};
+    private String line = null;
+
+    /**
+     * Tokenizes given commandline reusing the previous result if possible
+     *
+     * @param commandLine the commandline
+     * @param out         the spans to fill
+     *
+     * @return the filled spans
+     */
+    public synchronized Spans tokenize(String commandLine, Spans out)
+    {
+        this.update(commandLine);
+        this.spans.copyTo(out);
+        return out;
+    }
+
+    /**
+     * Forgets the previously tokenized commandline
+     */
+    public synchronized void clear()
+    {
+        this.line = null;
+        this.spans.clear();
+    }
+
+    private void update(String commandLine)
+    {
+        String previous = this.line;
+        this.line = commandLine;
+        if (previous == null || previous.isEmpty() || !commandLine.startsWith(previous))
+        {
+            this.spans.clear();
+            for (int i = 0; i < open.length; i++)
+            {
+                open[i] = -1;
+            }
+            Tokenizer.scan(commandLine, 0, this.spans, this.open, Integer.MAX_VALUE);
+            return;
+        }
+        int resume = previous.length();
+        if (resume == commandLine.length())
+        {
+            return;
+        }
+        // the appended part may close a quote that was left open, the first one wins
+        int first = open[0] >= 0 && (open[2] < 0 || open[0] < open[2]) ? 0 : 2;
+        int second = 2 - first;
+        if (this.closeQuote(commandLine, resume, first) || this.closeQuote(commandLine, resume, second))
+        {
+            return;
+        }
+
+        int last = this.spans.size() - 1;
+        if (last >= 0 && this.spans.end(last) == resume && !this.spans.isQuoted(last))
+        {
+            int start = this.spans.start(last);
+            this.spans.truncate(last);
+            if (start < resume)
+            {
+                // continue the last plain token up to the next whitespace
+                int end = resume;
+                while (end < commandLine.length() && !isWhitespace(commandLine.charAt(end)))
+                {
+                    end++;
+                }
+                this.spans.add(start, end, TokenType.PLAIN);
+                resume = end;
+            }
+            // else drop the empty token after trailing whitespace
+        }
+        Tokenizer.scan(commandLine, resume, this.spans, this.open, Integer.MAX_VALUE);
+    }
+
+    private boolean closeQuote(String commandLine, int resume, int kind)
+    {
+        int start = open[kind];
+        if (start < 0)
+        {
+            return false;
+        }
+        char quote = kind == 0 ? SINGLE_QUOTE : DOUBLE_QUOTE;
+        if (resume - 1 > start && commandLine.charAt(resume - 1) == ESCAPE && commandLine.charAt(resume) == quote)
+        {
+            resume++; // the quote was escaped by the last char of the previous line
+        }
+        int end = Tokenizer.closeQuote(commandLine, resume, quote);
+        if (end < 0)
+        {
+            return false;
+        }
+        this.spans.truncate(open[kind + 1]);
+        this.spans.add(start, end, TokenType.QUOTED);
+        for (int i = 0; i < open.length; i += 2)
+        {
+            if (open[i] >= start)
+            {
+                open[i] = -1; // opened within the now quoted token
+                open[i + 1] = -1;
+            }
+        }
+        Tokenizer.scan(commandLine, end, this.spans, this.open, Integer.MAX_VALUE);
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.ArrayDeque;
+import org.cubeengine.butler.provider.Providers;
+
+/**
+ * A pool of reusable {@link CommandInvocation}s.
+ * <p>Each thread has its own invocations so acquiring and releasing needs no synchronization.
+ * An invocation must not be used after it was released.</p>
+ */
+public class InvocationPool
+{
+    private final Providers providers;
+    private final int maxSize;
+    private final ThreadLocal<ArrayDeque<CommandInvocation>> pool = new ThreadLocal<ArrayDeque<CommandInvocation>>()
+    {
+        @Override
+        protected ArrayDeque<CommandInvocation> initialValue()
+        {
+            return new ArrayDeque<>();
+        }
+    };
+
+    /**
+     * Creates a new pool
+     *
+     * @param providers the providers of the invocations
+     * @param maxSize   the maximum amount of idle invocations per thread
+     */
+    public InvocationPool(Providers providers, int maxSize)
+    {
+        this.providers = providers;
+        this.maxSize = maxSize;
+    }
+
+    public InvocationPool(Providers providers)
+    {
+        this(providers, 4);
+    }
+
+    /**
+     * Returns an invocation for given CommandSource and commandline
+     *
+     * @param source      the CommandSource
+     * @param commandLine the commandline
+     *
+     * @return the invocation
+     */
+    public CommandInvocation acquire(Object source, String commandLine)
+    {
+        CommandInvocation invocation = pool.get().poll();
+        if (invocation == null)
+        {
+            return new CommandInvocation(source, commandLine, providers);
+        }
+        try
+        {
+            return invocation.reset(source, commandLine);
+        }
+        catch (RuntimeException e)
+        {
+            this.release(invocation);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns an invocation to the pool of the current thread
+     *
+     * @param invocation the invocation
+     */
+    public void release(CommandInvocation invocation)
+    {
+        if (invocation.providers() != providers)
+        {
+            throw new IllegalArgumentException("The invocation does not belong to this pool");
+        }
+        invocation.clear();
+        ArrayDeque<CommandInvocation> idle = pool.get();
+        if (idle.size() < maxSize)
+        {
+            idle.push(invocation);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.cubeengine.butler.Tokenizer.Spans;
+import org.cubeengine.butler.provider.Providers;
+
+/**
+ * Executes command scripts line by line.
+ * <p>The script is streamed through a fixed size buffer, each line is tokenized in place
+ * and only lines that are executed are copied into a String.
+ * Empty lines and lines starting with {@link #COMMENT} are skipped.</p>
+ */
+public class ScriptExecutor
+{
+    public static final char COMMENT = '#';
+    private static final int BUFFER_SIZE = 8192;
+    private static final long MAP_SIZE = 1 << 30;
+
+    private final Dispatcher dispatcher;
+    private final Providers providers;
+
+    public ScriptExecutor(Dispatcher dispatcher)
+    {
+        this.dispatcher = dispatcher;
+        this.providers = dispatcher.getManager().getProviders();
+    }
+
+    /**
+     * Executes the script read from given Reader
+     *
+     * @param source the CommandSource
+     * @param reader the reader
+     *
+     * @return the report
+     *
+     * @throws IOException if the reader fails
+     */
+    public ScriptReport execute(Object source, Reader reader) throws IOException
+    {
+        Run run = new Run(source);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        boolean end = false;
+        while (!end)
+        {
+            end = reader.read(chars) == -1;
+            chars = run.drain(chars, end);
+        }
+        return run.report.finish();
+    }
+
+    /**
+     * Executes the script in given CharBuffer from its position to its limit
+     *
+     * @param source the CommandSource
+     * @param script the script
+     *
+     * @return the report
+     */
+    public ScriptReport execute(Object source, CharBuffer script)
+    {
+        Run run = new Run(source);
+        script.position(script.position() + run.lines(script, true));
+        return run.report.finish();
+    }
+
+    /**
+     * Executes the script in given file.
+     * The file is memory-mapped and decoded in chunks.
+     *
+     * @param source  the CommandSource
+     * @param file    the file
+     * @param charset the charset of the file
+     *
+     * @return the report
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public ScriptReport execute(Object source, Path file, Charset charset) throws IOException
+    {
+        Run run = new Run(source);
+        CharsetDecoder decoder = charset.newDecoder()
+                                        .onMalformedInput(CodingErrorAction.REPLACE)
+                                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            long offset = 0;
+            boolean last = false;
+            while (!last)
+            {
+                long length = Math.min(MAP_SIZE, size - offset);
+                MappedByteBuffer bytes = channel.map(MapMode.READ_ONLY, offset, length);
+                last = offset + length == size;
+                CoderResult result;
+                do
+                {
+                    result = decoder.decode(bytes, chars, last);
+                    if (result.isError())
+                    {
+                        result.throwException();
+                    }
+                    chars = run.drain(chars, false);
+                }
+                while (result.isOverflow());
+                // bytes of a char split by the end of the mapped region are decoded with the next region
+                offset += bytes.position();
+            }
+            while (decoder.flush(chars).isOverflow())
+            {
+                chars = run.drain(chars, false);
+            }
+            run.drain(chars, true);
+        }
+        return run.report.finish();
+    }
+
+    /**
+     * The state of one script execution
+     */
+    private class Run
+    {
+        private final Object source;
+        private final Spans spans = new Spans();
+        private final ScriptReport report = new ScriptReport();
+        private boolean skipLineFeed = false;
+
+        private Run(Object source)
+        {
+            this.source = source;
+        }
+
+        /**
+         * Executes all complete lines from the buffer which is in write mode
+         *
+         * @param chars the buffer
+         * @param end   whether the input ended and the remaining chars are the last line
+         *
+         * @return the buffer to continue writing into
+         */
+        private CharBuffer drain(CharBuffer chars, boolean end)
+        {
+            chars.flip();
+            int consumed = lines(chars, end);
+            chars.position(chars.position() + consumed);
+            if (consumed == 0 && !end && chars.limit() == chars.capacity())
+            {
+                // a single line does not fit into the buffer
+                CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+                larger.put(chars);
+                return larger;
+            }
+            chars.compact();
+            return chars;
+        }
+
+        /**
+         * Executes all complete lines
+         *
+         * @param chars the chars
+         * @param end   whether the input ended and the remaining chars are the last line
+         *
+         * @return the amount of chars consumed
+         */
+        private int lines(CharSequence chars, boolean end)
+        {
+            int start = 0;
+            int length = chars.length();
+            for (int i = 0; i < length; i++)
+            {
+                char c = chars.charAt(i);
+                if (c == '\n' || c == '\r')
+                {
+                    if (skipLineFeed && c == '\n' && i == start)
+                    {
+                        skipLineFeed = false;
+                        start = i + 1;
+                        continue;
+                    }
+                    line(chars.subSequence(start, i));
+                    skipLineFeed = c == '\r';
+                    start = i + 1;
+                }
+            }
+            if (end && start < length)
+            {
+                line(chars.subSequence(start, length));
+                start = length;
+            }
+            return start;
+        }
+
+        private void line(CharSequence line)
+        {
+            report.lines++;
+            Tokenizer.tokenize(line, spans);
+            if (spans.size() == 0 || line.charAt(spans.start(0)) == COMMENT || spans.start(0) == spans.end(0))
+            {
+                return;
+            }
+            String commandLine = line.toString();
+            report.executed++;
+            try
+            {
+                CommandInvocation invocation = new CommandInvocation(source, commandLine, providers, spans.copy());
+                boolean ran = dispatcher.execute(invocation);
+                if (!ran || invocation.getHandledException() != null)
+                {
+                    report.fail(report.lines, commandLine, invocation.getHandledException());
+                }
+            }
+            catch (RuntimeException e)
+            {
+                report.fail(report.lines, commandLine, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The report of a script executed by a {@link ScriptExecutor}
+ */
+public class ScriptReport
+{
+    private final long start = System.nanoTime();
+    private long duration;
+    int lines = 0;
+    int executed = 0;
+    private final List<Failure> failures = new ArrayList<>();
+
+    void fail(int line, String commandLine, Throwable cause)
+    {
+        this.failures.add(new Failure(line, commandLine, cause));
+    }
+
+    ScriptReport finish()
+    {
+        this.duration = System.nanoTime() - start;
+        return this;
+    }
+
+    /**
+     * Returns the amount of lines read including empty lines and comments
+     *
+     * @return the amount of lines
+     */
+    public int getLines()
+    {
+        return lines;
+    }
+
+    /**
+     * Returns the amount of executed commands
+     *
+     * @return the amount of executed commands
+     */
+    public int getExecuted()
+    {
+        return executed;
+    }
+
+    /**
+     * Returns the lines that failed
+     *
+     * @return the failures
+     */
+    public List<Failure> getFailures()
+    {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Returns the time it took to execute the script
+     *
+     * @param unit the unit
+     *
+     * @return the duration
+     */
+    public long getDuration(TimeUnit unit)
+    {
+        return unit.convert(duration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the executed commands per second
+     *
+     * @return the throughput
+     */
+    public double getThroughput()
+    {
+        return duration == 0 ? 0 : executed * 1e9 / duration;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ScriptReport{" + "lines=" + lines + ", executed=" + executed + ", failures=" + failures.size()
+            + ", duration=" + getDuration(TimeUnit.MILLISECONDS) + "ms" + ", throughput=" + (long)getThroughput() + "/s}";
+    }
+
+    /**
+     * A line that did not run or threw an exception
+     */
+    public static final class Failure
+    {
+        private final int line;
+        private final String commandLine;
+        private final Throwable cause;
+
+        Failure(int line, String commandLine, Throwable cause)
+        {
+            this.line = line;
+            this.commandLine = commandLine;
+            this.cause = cause;
+        }
+
+        /**
+         * Returns the line number starting at 1
+         *
+         * @return the line number
+         */
+        public int getLine()
+        {
+            return line;
+        }
+
+        public String getCommandLine()
+        {
+            return commandLine;
+        }
+
+        /**
+         * Returns the exception thrown by the command, handled or not,
+         * or null if the command just did not run
+         *
+         * @return the cause
+         */
+        public Throwable getCause()
+        {
+            return cause;
+        }
+    }
+}
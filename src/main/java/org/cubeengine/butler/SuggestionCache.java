@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.cubeengine.butler.Tokenizer.Spans;
+
+/**
+ * Caches the suggestions of commands.
+ * <p>Entries are keyed by the command, the type of the CommandSource and the remaining commandline.
+ * They expire after a time to live, the least recently used entries are evicted when the cache is full
+ * and all entries are invalidated when the generation of the Providers changes.</p>
+ * <p>Suggestions from a {@link org.cubeengine.butler.parameter.argument.VolatileCompleter} and of cancelled completions
+ * are never cached.</p>
+ */
+public class SuggestionCache
+{
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+
+    /**
+     * Creates a new cache
+     *
+     * @param maxSize the maximum amount of entries
+     * @param ttl     the time to live of an entry
+     * @param unit    the unit of the time to live
+     */
+    public SuggestionCache(final int maxSize, long ttl, TimeUnit unit)
+    {
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest)
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Adds the cached suggestions for given command and invocation to the sink
+     *
+     * @param command    the command
+     * @param invocation the invocation
+     * @param generation the current generation
+     * @param sink       the sink
+     *
+     * @return true if the suggestions were served from the cache
+     */
+    public boolean get(CommandBase command, CommandInvocation invocation, long generation, SuggestionSink sink)
+    {
+        Key key = new Key(command, invocation);
+        Entry entry;
+        synchronized (this)
+        {
+            entry = this.entries.get(key);
+            if (entry == null)
+            {
+                return false;
+            }
+            if (entry.generation != generation || System.nanoTime() - entry.created > ttlNanos)
+            {
+                this.entries.remove(key);
+                return false;
+            }
+        }
+        if (!entry.complete && entry.suggestions.size() < sink.getLimit() - sink.size())
+        {
+            return false; // the cached suggestions were cut off by a smaller limit
+        }
+        sink.addAll(entry.suggestions);
+        return true;
+    }
+
+    /**
+     * Caches the suggestions collected in given sink
+     *
+     * @param command    the command
+     * @param invocation the invocation
+     * @param generation the generation the suggestions were computed in
+     * @param sink       the sink holding the suggestions
+     */
+    public void put(CommandBase command, CommandInvocation invocation, long generation, SuggestionSink sink)
+    {
+        this.put(new Key(command, invocation), generation, sink);
+    }
+
+    /**
+     * Returns a callback caching the suggestions collected in a sink for the current state of given invocation.
+     * The key is taken right away, so the invocation may be reused before asynchronous suggestions complete.
+     *
+     * @param command    the command
+     * @param invocation the invocation
+     * @param generation the generation the suggestions are computed in
+     *
+     * @return the callback
+     */
+    public Consumer<SuggestionSink> putLater(CommandBase command, CommandInvocation invocation, final long generation)
+    {
+        final Key key = new Key(command, invocation);
+        return new Consumer<SuggestionSink>()
+        {
+            @Override
+            public void accept(SuggestionSink sink)
+            {
+                put(key, generation, sink);
+            }
+        };
+    }
+
+    private void put(Key key, long generation, SuggestionSink sink)
+    {
+        if (sink.isVolatile() || sink.isCancelled())
+        {
+            return;
+        }
+        Entry entry = new Entry(sink.toList(), !sink.isFull(), generation, System.nanoTime());
+        synchronized (this)
+        {
+            this.entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Removes all entries
+     */
+    public synchronized void clear()
+    {
+        this.entries.clear();
+    }
+
+    public synchronized int size()
+    {
+        return this.entries.size();
+    }
+
+    private static final class Key
+    {
+        private final CommandBase command;
+        private final Class<?> sourceType;
+        private final String remaining; // the raw commandline from the first unconsumed token
+        private final int hash;
+
+        private Key(CommandBase command, CommandInvocation invocation)
+        {
+            this.command = command;
+            Object source = invocation.getCommandSource();
+            this.sourceType = source == null ? null : source.getClass();
+            Spans spans = invocation.spans();
+            int consumed = invocation.consumed();
+            // the span starts at the opening quote so quoted and unquoted tokens never share a key
+            this.remaining = consumed < spans.size() ? invocation.getCommandLine().substring(spans.start(consumed)) : "";
+            int hash = System.identityHashCode(command);
+            hash = 31 * hash + (sourceType == null ? 0 : sourceType.hashCode());
+            this.hash = 31 * hash + this.remaining.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key)o;
+            return command == key.command && sourceType == key.sourceType && remaining.equals(key.remaining);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    private static final class Entry
+    {
+        private final List<String> suggestions;
+        private final boolean complete;
+        private final long generation;
+        private final long created;
+
+        private Entry(List<String> suggestions, boolean complete, long generation, long created)
+        {
+            this.suggestions = suggestions;
+            this.complete = complete;
+            this.generation = generation;
+            this.created = created;
+        }
+    }
+}
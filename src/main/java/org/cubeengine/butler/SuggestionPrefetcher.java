@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Computes the suggestions for the first argument of a command in the background
+ * as soon as its name was completed, so they can be served from the {@link SuggestionCache}.
+ * <p>Prefetching only takes effect when a SuggestionCache is set.</p>
+ */
+public class SuggestionPrefetcher
+{
+    private final Executor executor;
+    private final int limit;
+    private final Set<Pending> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new prefetcher
+     *
+     * @param executor the executor to compute the suggestions on
+     * @param limit    the maximum amount of suggestions to compute
+     */
+    public SuggestionPrefetcher(Executor executor, int limit)
+    {
+        this.executor = executor;
+        this.limit = limit;
+    }
+
+    /**
+     * Computes the suggestions for the first argument of given command in the background
+     *
+     * @param command    the command
+     * @param invocation the invocation whose current token is the name of the command
+     */
+    public void prefetch(final CommandBase command, CommandInvocation invocation)
+    {
+        if (invocation.providers().getSuggestionCache() == null)
+        {
+            return;
+        }
+        // the commandline up to the completed name with the same parents as the request completing the arguments
+        final CommandInvocation prefetch = invocation.prefixInvocation();
+        final Pending key = new Pending(command, invocation.getCommandSource());
+        if (!this.pending.add(key))
+        {
+            return;
+        }
+        try
+        {
+            this.executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        command.getSuggestions(prefetch.subInvocation(command), new SuggestionSink(limit));
+                    }
+                    catch (RuntimeException ignored)
+                    {
+                        // the suggestions are computed again when requested
+                    }
+                    finally
+                    {
+                        pending.remove(key);
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            this.pending.remove(key);
+        }
+    }
+
+    private static final class Pending
+    {
+        private final CommandBase command;
+        private final Object source;
+
+        private Pending(CommandBase command, Object source)
+        {
+            this.command = command;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Pending))
+            {
+                return false;
+            }
+            Pending other = (Pending)o;
+            return command == other.command && source == other.source;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * System.identityHashCode(command) + System.identityHashCode(source);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects suggestions for tab completion.
+ * <p>Duplicates are dropped and no more suggestions are accepted once the limit is reached.
+ * Completers should stop producing suggestions when the sink {@link #isFull() is full}.
+ * A {@link #cancel() cancelled} sink is always full.</p>
+ */
+public class SuggestionSink
+{
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int limit;
+    private final List<String> suggestions = new ArrayList<>();
+    private final Set<String> seen = new HashSet<>();
+    private boolean volatileSuggestions = false;
+    private final SuggestionSink parent;
+    private volatile boolean cancelled = false;
+
+    public SuggestionSink(int limit)
+    {
+        if (limit < 0)
+        {
+            throw new IllegalArgumentException("The limit may not be negative");
+        }
+        this.limit = limit;
+        this.parent = null;
+    }
+
+    public SuggestionSink()
+    {
+        this(UNLIMITED);
+    }
+
+    private SuggestionSink(SuggestionSink parent)
+    {
+        this.limit = parent.limit;
+        this.parent = parent;
+    }
+
+    /**
+     * Creates an empty sink with the same limit that is cancelled together with this sink
+     *
+     * @return the new sink
+     */
+    public SuggestionSink newChild()
+    {
+        return new SuggestionSink(this);
+    }
+
+    /**
+     * Adds a suggestion
+     *
+     * @param suggestion the suggestion
+     *
+     * @return true if the suggestion was added
+     */
+    public boolean add(String suggestion)
+    {
+        if (this.isFull() || !this.seen.add(suggestion))
+        {
+            return false;
+        }
+        this.suggestions.add(suggestion);
+        return true;
+    }
+
+    /**
+     * Adds suggestions until the sink is full
+     *
+     * @param suggestions the suggestions
+     *
+     * @return true if the sink accepts more suggestions
+     */
+    public boolean addAll(Collection<String> suggestions)
+    {
+        for (String suggestion : suggestions)
+        {
+            if (this.isFull())
+            {
+                return false;
+            }
+            this.add(suggestion);
+        }
+        return !this.isFull();
+    }
+
+    /**
+     * Returns whether the limit is reached
+     *
+     * @return true if no more suggestions are accepted
+     */
+    public boolean isFull()
+    {
+        return this.suggestions.size() >= this.limit || this.isCancelled();
+    }
+
+    /**
+     * Cancels the completion filling this sink.
+     * This may be called from any thread.
+     */
+    public void cancel()
+    {
+        this.cancelled = true;
+    }
+
+    /**
+     * Returns whether the completion filling this sink was cancelled
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled()
+    {
+        return this.cancelled || (this.parent != null && this.parent.isCancelled());
+    }
+
+    /**
+     * Marks the suggestions of this sink as changing over time so they are not cached
+     */
+    public void markVolatile()
+    {
+        this.volatileSuggestions = true;
+    }
+
+    public boolean isVolatile()
+    {
+        return volatileSuggestions;
+    }
+
+    public int getLimit()
+    {
+        return limit;
+    }
+
+    public int size()
+    {
+        return this.suggestions.size();
+    }
+
+    /**
+     * Returns the collected suggestions in the order they were added
+     *
+     * @return a copy of the suggestions
+     */
+    public List<String> toList()
+    {
+        return new ArrayList<>(this.suggestions);
+    }
+}
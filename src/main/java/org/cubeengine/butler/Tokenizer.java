@@ -23,8 +23,10 @@
 package org.cubeengine.butler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import org.cubeengine.butler.exception.InputLimitException;
 
 import static java.lang.Character.isWhitespace;
 import static java.util.Collections.emptyList;
@@ -80,17 +82,192 @@ public class Tokenizer
         }
     }
 
+    /**
+     * A reusable list of token spans over a command line.
+     * Each token is stored as a start/end/type triple in a single int array,
+     * so tokenizing does not allocate any Strings.
+     * Quoted tokens span their quotes, an empty trailing token has start == end.
+     */
+    public static final class Spans
+    {
+        private static final int STRIDE = 3;
+        private static final TokenType[] TYPES = TokenType.values();
+
+        private int[] data;
+        private int size = 0;
+
+        public Spans()
+        {
+            this(8);
+        }
+
+        public Spans(int capacity)
+        {
+            this.data = new int[Math.max(1, capacity) * STRIDE];
+        }
+
+        void truncate(int size)
+        {
+            this.size = Math.min(this.size, size);
+        }
+
+        Spans copy()
+        {
+            Spans copy = new Spans(this.size);
+            this.copyTo(copy);
+            return copy;
+        }
+
+        void copyTo(Spans other)
+        {
+            if (other.data.length < this.size * STRIDE)
+            {
+                other.data = new int[this.data.length];
+            }
+            System.arraycopy(this.data, 0, other.data, 0, this.size * STRIDE);
+            other.size = this.size;
+        }
+
+        void add(int start, int end, TokenType type)
+        {
+            int offset = size * STRIDE;
+            if (offset + STRIDE > data.length)
+            {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[offset] = start;
+            data[offset + 1] = end;
+            data[offset + 2] = type.ordinal();
+            size++;
+        }
+
+        /**
+         * Removes all spans while keeping the backing array
+         */
+        public void clear()
+        {
+            this.size = 0;
+        }
+
+        /**
+         * Returns the amount of tokens
+         *
+         * @return the amount of tokens
+         */
+        public int size()
+        {
+            return size;
+        }
+
+        /**
+         * Returns the index of the first char of the token including its opening quote
+         *
+         * @param index the index of the token
+         *
+         * @return the start of the token
+         */
+        public int start(int index)
+        {
+            return data[offset(index)];
+        }
+
+        /**
+         * Returns the index after the last char of the token including its closing quote
+         *
+         * @param index the index of the token
+         *
+         * @return the end of the token
+         */
+        public int end(int index)
+        {
+            return data[offset(index) + 1];
+        }
+
+        public TokenType type(int index)
+        {
+            return TYPES[data[offset(index) + 2]];
+        }
+
+        public boolean isQuoted(int index)
+        {
+            return data[offset(index) + 2] == TokenType.QUOTED.ordinal();
+        }
+
+        private int offset(int index)
+        {
+            if (index < 0 || index >= size)
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return index * STRIDE;
+        }
+    }
+
     public static List<Token> tokenize(String input)
     {
         if (input.isEmpty())
         {
             return emptyList();
         }
-        int i = 0;
+        Spans spans = tokenize(input, new Spans());
+        List<Token> out = new ArrayList<>(spans.size());
+        for (int i = 0; i < spans.size(); ++i)
+        {
+            out.add(new Token(spans.type(i), valueOf(input, spans, i)));
+        }
+        return out;
+    }
+
+    /**
+     * Tokenizes the input into given spans without creating any Strings
+     *
+     * @param input the input
+     * @param out   the spans to fill, previous content is cleared
+     *
+     * @return the filled spans
+     */
+    public static Spans tokenize(CharSequence input, Spans out)
+    {
+        return tokenize(input, out, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Tokenizes the input into given spans without creating any Strings
+     *
+     * @param input     the input
+     * @param out       the spans to fill, previous content is cleared
+     * @param maxTokens the maximum amount of tokens
+     *
+     * @return the filled spans
+     *
+     * @throws InputLimitException when the input has more than maxTokens tokens
+     */
+    public static Spans tokenize(CharSequence input, Spans out, int maxTokens)
+    {
+        out.clear();
+        scan(input, 0, out, null, maxTokens);
+        return out;
+    }
+
+    /**
+     * Scans the input starting at given position and appends the tokens to the spans.
+     * <p>The input is scanned in a single pass: when the closing quote of a quote is not found
+     * the search is remembered and no later quote of the same kind is searched again
+     * as it cannot be closed either.</p>
+     *
+     * @param input     the input
+     * @param i         the position to start at, must be the start of a token or whitespace
+     * @param out       the spans to append to
+     * @param open      if not null the first unterminated quote of each kind is read from and recorded in here
+     *                  as position and span index, see {@link IncrementalTokenizer}
+     * @param maxTokens the maximum amount of tokens
+     */
+    static void scan(CharSequence input, int i, Spans out, int[] open, int maxTokens)
+    {
         int len = input.length();
         char current;
-        List<Token> out = new ArrayList<>();
-        boolean expectPlain = false;
+        int openSingle = open == null ? -1 : open[0];
+        int openDouble = open == null ? -1 : open[2];
 
         while (i < len)
         {
@@ -102,59 +279,111 @@ public class Tokenizer
                     ++i;
                     if (i >= len)
                     {
-                        out.add(new Token(TokenType.PLAIN, ""));
+                        add(out, len, len, TokenType.PLAIN, maxTokens);
                         break;
                     }
                     current = input.charAt(i);
                 }
                 while (isWhitespace(current));
+                continue;
             }
-            else if (!expectPlain && (current == SINGLE_QUOTE || current == DOUBLE_QUOTE))
+            int start = i;
+            if (current == SINGLE_QUOTE || current == DOUBLE_QUOTE)
             {
-                int start = i++;
-                final char quote = current;
-                boolean complete = false;
-                while (i < len)
+                boolean single = current == SINGLE_QUOTE;
+                if ((single ? openSingle : openDouble) < 0)
                 {
-                    current = input.charAt(i++);
-                    if (current == quote)
+                    int end = closeQuote(input, start + 1, current);
+                    if (end >= 0)
                     {
-                        complete = true;
-                        out.add(new Token(TokenType.QUOTED, unescape(input, start, i, quote)));
-                        break;
+                        add(out, start, end, TokenType.QUOTED, maxTokens);
+                        i = end;
+                        continue;
                     }
-                    if (current == ESCAPE && i < len && input.charAt(i) == quote)
+                    // not closed: remember it and read it as plain token
+                    if (single)
                     {
-                        i++;
+                        openSingle = start;
                     }
-                }
-                if (!complete)
-                {
-                    expectPlain = true;
-                    i = start;
-                }
-            }
-            else
-            {
-                expectPlain = false;
-                int start = i++;
-                while (i < len)
-                {
-                    current = input.charAt(i);
-                    if (isWhitespace(current))
+                    else
                     {
-                        break;
+                        openDouble = start;
+                    }
+                    if (open != null)
+                    {
+                        int kind = single ? 0 : 2;
+                        open[kind] = start;
+                        open[kind + 1] = out.size();
                     }
-                    i++;
                 }
-                out.add(new Token(TokenType.PLAIN, input.substring(start, i)));
             }
+            i++;
+            while (i < len && !isWhitespace(input.charAt(i)))
+            {
+                i++;
+            }
+            add(out, start, i, TokenType.PLAIN, maxTokens);
         }
+    }
 
-        return out;
+    private static void add(Spans out, int start, int end, TokenType type, int maxTokens)
+    {
+        if (out.size() >= maxTokens)
+        {
+            throw InputLimitException.tooManyTokens(maxTokens);
+        }
+        out.add(start, end, type);
+    }
+
+    /**
+     * Searches the closing quote
+     *
+     * @param input the input
+     * @param i     the position after the opening quote or the position to continue searching at
+     * @param quote the quote
+     *
+     * @return the position after the closing quote or -1 if the quote is not closed
+     */
+    static int closeQuote(CharSequence input, int i, char quote)
+    {
+        int len = input.length();
+        char current;
+        while (i < len)
+        {
+            current = input.charAt(i++);
+            if (current == quote)
+            {
+                return i;
+            }
+            if (current == ESCAPE && i < len && input.charAt(i) == quote)
+            {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates the value of a token
+     *
+     * @param input the tokenized input
+     * @param spans the spans of the input
+     * @param index the index of the token
+     *
+     * @return the value of the token
+     */
+    public static String valueOf(CharSequence input, Spans spans, int index)
+    {
+        int start = spans.start(index);
+        int end = spans.end(index);
+        if (spans.isQuoted(index))
+        {
+            return unescape(input, start, end, input.charAt(start));
+        }
+        return input.subSequence(start, end).toString();
     }
 
-    public static String unescape(String input, int start, int end, char quote)
+    public static String unescape(CharSequence input, int start, int end, char quote)
     {
         StringBuilder out = new StringBuilder(end - start);
         char current, next;
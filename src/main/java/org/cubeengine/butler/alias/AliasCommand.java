@@ -23,9 +23,13 @@
 package org.cubeengine.butler.alias;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import org.cubeengine.butler.CommandBase;
 import org.cubeengine.butler.CommandDescriptor;
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.SuggestionSink;
 
 public class AliasCommand implements CommandBase
 {
@@ -44,6 +48,12 @@ public class AliasCommand implements CommandBase
         return target.execute(invocation);
     }
 
+    @Override
+    public CompletableFuture<Boolean> executeAsync(CommandInvocation invocation, Executor executor)
+    {
+        return target.executeAsync(invocation, executor);
+    }
+
     @Override
     public CommandDescriptor getDescriptor()
     {
@@ -56,6 +66,18 @@ public class AliasCommand implements CommandBase
         return target.getSuggestions(invocation);
     }
 
+    @Override
+    public boolean getSuggestions(CommandInvocation invocation, SuggestionSink sink)
+    {
+        return target.getSuggestions(invocation, sink);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getSuggestionsAsync(CommandInvocation invocation, int limit, long timeout, TimeUnit unit)
+    {
+        return target.getSuggestionsAsync(invocation, limit, timeout, unit);
+    }
+
     public CommandBase getTarget()
     {
         return target;
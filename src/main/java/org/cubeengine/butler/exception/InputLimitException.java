@@ -0,0 +1,57 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.exception;
+
+/**
+ * This exception is thrown when a commandline exceeds the input limits configured in the Providers
+ */
+public class InputLimitException extends CommandException
+{
+    private final int limit;
+
+    public InputLimitException(String message, int limit)
+    {
+        super(message);
+        this.limit = limit;
+    }
+
+    public static InputLimitException tooLong(int limit)
+    {
+        return new InputLimitException("The commandline is too long", limit);
+    }
+
+    public static InputLimitException tooManyTokens(int limit)
+    {
+        return new InputLimitException("The commandline has too many arguments", limit);
+    }
+
+    /**
+     * Returns the exceeded limit
+     *
+     * @return the limit
+     */
+    public int getLimit()
+    {
+        return limit;
+    }
+}
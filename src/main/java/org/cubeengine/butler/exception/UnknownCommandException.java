@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.exception;
+
+import java.util.List;
+import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.DispatcherCommand;
+
+/**
+ * This exception is passed to the exception handler when a dispatcher has no command for a token
+ */
+public class UnknownCommandException extends CommandException
+{
+    private static final int SUGGESTIONS = 5;
+
+    private final DispatcherCommand dispatcher;
+    private final CommandInvocation invocation;
+    private final String token;
+    private List<String> suggestions;
+
+    public UnknownCommandException(DispatcherCommand dispatcher, CommandInvocation invocation, String token)
+    {
+        super("Unknown command \"" + token + "\"");
+        this.dispatcher = dispatcher;
+        this.invocation = invocation;
+        this.token = token;
+    }
+
+    /**
+     * Returns the dispatcher that had no command for the token
+     *
+     * @return the dispatcher
+     */
+    public DispatcherCommand getDispatcher()
+    {
+        return dispatcher;
+    }
+
+    /**
+     * Returns the unknown token
+     *
+     * @return the token
+     */
+    public String getToken()
+    {
+        return token;
+    }
+
+    /**
+     * Returns the aliases most similar to the unknown token that the CommandSource may execute.
+     * The suggestions are computed on the first call.
+     *
+     * @return the suggestions
+     */
+    public List<String> getSuggestions()
+    {
+        if (suggestions == null)
+        {
+            suggestions = dispatcher.getSimilarAliases(token, invocation, SUGGESTIONS);
+        }
+        return suggestions;
+    }
+}
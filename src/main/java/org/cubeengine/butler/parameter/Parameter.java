@@ -22,14 +22,19 @@
  */
 package org.cubeengine.butler.parameter;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.SuggestionSink;
+import org.cubeengine.butler.parameter.argument.ParseResult;
 import org.cubeengine.butler.parameter.parser.ParameterParser;
 import org.cubeengine.butler.parameter.parser.ParameterParser.ParameterType;
 import org.cubeengine.butler.parameter.property.Filters;
 import org.cubeengine.butler.parameter.property.Properties;
+import org.cubeengine.butler.parameter.property.PropertyKey;
 
 /**
  * The Base for Parameters with a Set of ParameterProperties
@@ -41,17 +46,128 @@ public class Parameter
     public static final int DEFAULT = 1;
 
 
-    private Map<Object, Object> properties = new HashMap<>();
+    private Object[] values = new Object[PropertyKey.count()];
+    private Map<Object, Object> properties; // values of keys without a PropertyKey
+    private boolean frozen = false;
 
+    // the properties needed for every token
+    private Class<?> type;
+    private Class<?> readerType;
+    private int greed;
+    private Class<?> defaultProvider;
+    private ParameterParser parser;
+    private Filters filters;
+
+    @SuppressWarnings("unchecked")
     public Object offer(Object key, Object value)
     {
+        PropertyKey<?> propertyKey = PropertyKey.of(key);
+        if (propertyKey != null)
+        {
+            return offer((PropertyKey<Object>)propertyKey, value);
+        }
+        checkFrozen();
+        if (properties == null)
+        {
+            properties = new HashMap<>();
+        }
         return properties.put(key, value);
     }
 
+    /**
+     * Sets the value of a property
+     *
+     * @param key   the key
+     * @param value the value
+     * @param <T>   the type of the value
+     *
+     * @return the previous value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T offer(PropertyKey<T> key, T value)
+    {
+        checkFrozen();
+        int index = key.getIndex();
+        if (index >= values.length)
+        {
+            values = Arrays.copyOf(values, PropertyKey.count());
+        }
+        T previous = (T)values[index];
+        values[index] = value;
+
+        if (key == Properties.TYPE)
+        {
+            type = (Class<?>)value;
+        }
+        else if (key == Properties.READER)
+        {
+            readerType = (Class<?>)value;
+        }
+        else if (key == Properties.GREED)
+        {
+            greed = value == null ? 0 : (Integer)value;
+        }
+        else if (key == Properties.DEFAULT_PROVIDER)
+        {
+            defaultProvider = (Class<?>)value;
+        }
+        else if (key == Properties.PARSER)
+        {
+            parser = (ParameterParser)value;
+        }
+        else if (key == Properties.FILTERS)
+        {
+            filters = (Filters)value;
+        }
+        return previous;
+    }
+
     @SuppressWarnings("unchecked")
     public <T> T getProperty(Object key)
     {
-        return ((T)properties.get(key));
+        PropertyKey<?> propertyKey = PropertyKey.of(key);
+        if (propertyKey != null)
+        {
+            return (T)getProperty(propertyKey);
+        }
+        return properties == null ? null : (T)properties.get(key);
+    }
+
+    /**
+     * Returns the value of a property
+     *
+     * @param key the key
+     * @param <T> the type of the value
+     *
+     * @return the value or null if not set
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getProperty(PropertyKey<T> key)
+    {
+        int index = key.getIndex();
+        return index < values.length ? (T)values[index] : null;
+    }
+
+    /**
+     * Freezes this parameter. Offering properties to a frozen parameter fails.
+     * <p>Is called once the parameter is built</p>
+     */
+    public void freeze()
+    {
+        this.frozen = true;
+    }
+
+    public boolean isFrozen()
+    {
+        return frozen;
+    }
+
+    private void checkFrozen()
+    {
+        if (frozen)
+        {
+            throw new IllegalStateException("The parameter is already built");
+        }
     }
 
     /**
@@ -61,7 +177,7 @@ public class Parameter
      */
     public Class<?> getType()
     {
-        return getProperty(Properties.TYPE);
+        return type;
     }
 
     /**
@@ -71,7 +187,7 @@ public class Parameter
      */
     public Class<?> getReaderType()
     {
-        return getProperty(Properties.READER);
+        return readerType;
     }
 
     /**
@@ -83,7 +199,6 @@ public class Parameter
      */
     public boolean isAllowed(CommandInvocation invocation)
     {
-        Filters filters = this.getProperty(Properties.FILTERS);
         if (filters != null)
         {
             filters.run(invocation);
@@ -119,6 +234,20 @@ public class Parameter
         parse(invocation, params, null);
     }
 
+    /**
+     * Parses the Parameter with given invocation returning failures instead of throwing them
+     *
+     * @param invocation  the invocation
+     * @param params      the parsed parameters
+     * @param suggestions the parameters to suggest for or null if not completing
+     *
+     * @return the result
+     */
+    public ParseResult<Void> tryParse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
+    {
+        return getParser().tryParse(invocation, params, suggestions);
+    }
+
 
     /**
      * Returns a List of suggested Strings
@@ -132,14 +261,38 @@ public class Parameter
         return getParser().getSuggestions(invocation);
     }
 
+    /**
+     * Adds suggested Strings to the sink
+     *
+     * @param invocation the CommandInvocation
+     * @param sink       the sink
+     */
+    public void getSuggestions(CommandInvocation invocation, SuggestionSink sink)
+    {
+        getParser().getSuggestions(invocation, sink);
+    }
+
+    /**
+     * Adds the future suggested Strings to the list
+     *
+     * @param invocation the CommandInvocation
+     * @param sink       the sink the suggestions are collected in
+     * @param futures    the future suggestions
+     */
+    public void getSuggestionsAsync(CommandInvocation invocation, SuggestionSink sink,
+                                    List<CompletableFuture<List<String>>> futures)
+    {
+        getParser().getSuggestionsAsync(invocation, sink, futures);
+    }
+
     public int getGreed()
     {
-        return getProperty(Properties.GREED);
+        return greed;
     }
 
     public Class<?> getDefaultProvider()
     {
-        return getProperty(Properties.DEFAULT_PROVIDER);
+        return defaultProvider;
     }
 
     public ParameterType getParameterType()
@@ -149,6 +302,6 @@ public class Parameter
 
     public ParameterParser getParser()
     {
-        return getProperty(Properties.PARSER);
+        return parser;
     }
 }
@@ -23,6 +23,7 @@
 package org.cubeengine.butler.parameter;
 
 import java.util.List;
+import org.cubeengine.butler.CommandInvocation;
 
 /**
  * A parsed parameter
@@ -33,7 +34,7 @@ public class ParsedParameter
     private final Object parsedValue;
     private final String rawValue;
 
-    private ParsedParameter(Parameter parameter, Object parsedString, String rawValue)
+    protected ParsedParameter(Parameter parameter, Object parsedString, String rawValue)
     {
         this.parameter = parameter;
         this.parsedValue = parsedString;
@@ -98,6 +99,30 @@ public class ParsedParameter
         return parsedValue;
     }
 
+    /**
+     * Returns the parsed value converting it first if it was only parsed structurally for a completion
+     * <p>The invocation has to hold the same tokens as the one this parameter was parsed from.</p>
+     *
+     * @param invocation the invocation
+     *
+     * @return the parsed value
+     */
+    public Object getParsedValue(CommandInvocation invocation)
+    {
+        return getParsedValue();
+    }
+
+    /**
+     * Returns whether the value was converted.
+     * Values parsed for a completion are only converted when requested.
+     *
+     * @return true if the value was converted
+     */
+    public boolean isConverted()
+    {
+        return true;
+    }
+
     /**
      * Returns the raw String or null if this is a group of Parameters
      *
@@ -41,4 +41,25 @@ public interface ArgumentParser<ObjectT>
      * @throws ParserException when the butler cannot parse your request.
      */
     ObjectT parse(Class type, CommandInvocation invocation) throws ParserException;
+
+    /**
+     * Parses the next command input returning failures instead of throwing them.
+     * <p>Parsers that fail often should override this without creating exceptions.
+     * The consumed input of a failed parse is reset by the caller.</p>
+     *
+     * @param type the type of Object expected
+     * @param invocation the invocation
+     * @return the result
+     */
+    default ParseResult<ObjectT> tryParse(Class type, CommandInvocation invocation)
+    {
+        try
+        {
+            return ParseResult.success(this.parse(type, invocation));
+        }
+        catch (RuntimeException e)
+        {
+            return ParseResult.failure(e);
+        }
+    }
 }
@@ -23,7 +23,10 @@
 package org.cubeengine.butler.parameter.argument;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.cubeengine.butler.AsyncCompletion;
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.SuggestionSink;
 
 /**
  * A Completer suggests a list of strings to perfect your already good {@link CommandInvocation}.
@@ -39,4 +42,34 @@ public interface Completer
      * @return the list of suggestions
      */
     List<String> suggest(Class type, CommandInvocation invocation);
+
+    /**
+     * Adds suitable suggestions to the sink.
+     * Completers with many suggestions should override this and stop when the sink is full.
+     *
+     * @param type       the type
+     * @param invocation the invocation
+     * @param sink       the sink
+     */
+    default void suggest(Class type, CommandInvocation invocation, SuggestionSink sink)
+    {
+        sink.addAll(this.suggest(type, invocation));
+    }
+
+    /**
+     * Suggests a suitable list of strings asynchronously.
+     * Completers querying slow services should override this.
+     * <p>The invocation may be reused once this method returned so everything needed from it has to be read beforehand.
+     * The returned future may be cancelled when the suggestions are no longer needed,
+     * completers blocking on a slow service should use {@link AsyncCompletion#interruptible} to be interrupted then.</p>
+     *
+     * @param type       the type
+     * @param invocation the invocation
+     *
+     * @return the future list of suggestions
+     */
+    default CompletableFuture<List<String>> suggestAsync(Class type, CommandInvocation invocation)
+    {
+        return CompletableFuture.completedFuture(this.suggest(type, invocation));
+    }
 }
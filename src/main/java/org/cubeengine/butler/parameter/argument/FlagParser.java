@@ -41,19 +41,30 @@ public class FlagParser implements ArgumentParser<Boolean>, DefaultValue<Boolean
     @Override
     public Boolean parse(Class type, CommandInvocation invocation) throws ParserException
     {
-        String flag = invocation.currentToken();
-        if (flag.startsWith("-"))
+        if (isFlag(invocation, this.name) || isFlag(invocation, this.longName))
         {
-            flag = flag.substring(1);
-            if (this.name.equalsIgnoreCase(flag) || this.longName.equalsIgnoreCase(flag))
-            {
-                invocation.consume(1);
-                return true;
-            }
+            invocation.skip(1);
+            return true;
         }
         return null;
     }
 
+    /**
+     * Checks whether the current token is given flag without creating the token
+     *
+     * @param invocation the invocation
+     * @param flag the flag name without its dash
+     *
+     * @return true if the current token is the flag
+     */
+    public static boolean isFlag(CommandInvocation invocation, String flag)
+    {
+        int index = invocation.consumed();
+        return invocation.tokenLength(index) == flag.length() + 1
+            && invocation.tokenStartsWithIgnoreCase(index, 0, "-")
+            && invocation.tokenStartsWithIgnoreCase(index, 1, flag);
+    }
+
     @Override
     public Boolean provide(CommandInvocation invocation)
     {
@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.parameter.argument;
+
+import java.util.function.Supplier;
+
+/**
+ * The outcome of parsing an argument or a parameter.
+ * <p>A failure only creates its exception when it is requested,
+ * so trying a parameter that does not fit the input stays cheap.</p>
+ *
+ * @param <T> the type of the parsed value
+ */
+public final class ParseResult<T>
+{
+    private static final ParseResult<Object> SUCCESS = new ParseResult<>(null, null, null);
+
+    private final T value;
+    private final Supplier<? extends RuntimeException> reason;
+    private RuntimeException failure;
+
+    private ParseResult(T value, Supplier<? extends RuntimeException> reason, RuntimeException failure)
+    {
+        this.value = value;
+        this.reason = reason;
+        this.failure = failure;
+    }
+
+    /**
+     * Returns a successful result without a value
+     *
+     * @param <T> the type of the result
+     *
+     * @return the result
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ParseResult<T> success()
+    {
+        return (ParseResult<T>)SUCCESS;
+    }
+
+    /**
+     * Returns a successful result
+     *
+     * @param value the parsed value
+     * @param <T>   the type of the value
+     *
+     * @return the result
+     */
+    public static <T> ParseResult<T> success(T value)
+    {
+        return value == null ? ParseResult.<T>success() : new ParseResult<>(value, null, null);
+    }
+
+    /**
+     * Returns a failed result whose exception is created when requested
+     *
+     * @param reason creates the exception describing the failure
+     * @param <T>    the type of the result
+     *
+     * @return the result
+     */
+    public static <T> ParseResult<T> failure(Supplier<? extends RuntimeException> reason)
+    {
+        return new ParseResult<>(null, reason, null);
+    }
+
+    /**
+     * Returns a failed result with an already created exception
+     *
+     * @param failure the exception describing the failure
+     * @param <T>     the type of the result
+     *
+     * @return the result
+     */
+    public static <T> ParseResult<T> failure(RuntimeException failure)
+    {
+        return new ParseResult<>(null, null, failure);
+    }
+
+    /**
+     * Returns a failed result creating a {@link ParserException} when requested
+     *
+     * @param message the message
+     * @param args    the arguments of the message
+     * @param <T>     the type of the result
+     *
+     * @return the result
+     */
+    public static <T> ParseResult<T> failure(final String message, final String... args)
+    {
+        return failure(new Supplier<RuntimeException>()
+        {
+            @Override
+            public RuntimeException get()
+            {
+                return new ParserException(message, args);
+            }
+        });
+    }
+
+    public boolean isSuccess()
+    {
+        return this.reason == null && this.failure == null;
+    }
+
+    /**
+     * Returns the parsed value or throws the failure
+     *
+     * @return the parsed value
+     */
+    public T getValue()
+    {
+        if (!this.isSuccess())
+        {
+            throw this.getFailure();
+        }
+        return this.value;
+    }
+
+    /**
+     * Returns the exception describing the failure creating it if necessary
+     *
+     * @return the exception or null if successful
+     */
+    public RuntimeException getFailure()
+    {
+        if (this.failure == null && this.reason != null)
+        {
+            this.failure = this.reason.get();
+        }
+        return this.failure;
+    }
+
+    /**
+     * Returns this failure as a result of another type
+     *
+     * @param <R> the other type
+     *
+     * @return this failure
+     */
+    @SuppressWarnings("unchecked")
+    public <R> ParseResult<R> asFailure()
+    {
+        if (this.isSuccess())
+        {
+            throw new IllegalStateException("The result is not a failure");
+        }
+        return (ParseResult<R>)this;
+    }
+}
@@ -41,15 +41,26 @@ public class SimpleListParser implements ArgumentParser<List>
 
     @Override
     public List parse(Class type, CommandInvocation invocation) throws ParserException
+    {
+        return this.tryParse(type, invocation).getValue();
+    }
+
+    @Override
+    public ParseResult<List> tryParse(Class type, CommandInvocation invocation)
     {
         List<Object> result = new ArrayList<>();
 
-        invocation = invocation.setTokens(invocation.consume(1), delimiter);
+        invocation = invocation.split(delimiter);
         while (!invocation.isConsumed())
         {
-            result.add(invocation.providers().read(type, type, invocation));
+            ParseResult<?> read = invocation.providers().tryRead(type, type, invocation);
+            if (!read.isSuccess())
+            {
+                return read.asFailure();
+            }
+            result.add(read.getValue());
         }
 
-        return result;
+        return ParseResult.<List>success(result);
     }
 }
@@ -30,12 +30,23 @@ public class StringArrayParser implements ArgumentParser<String[]>
 {
     @Override
     public String[] parse(Class type, CommandInvocation invocation) throws ParserException
+    {
+        return this.tryParse(type, invocation).getValue();
+    }
+
+    @Override
+    public ParseResult<String[]> tryParse(Class type, CommandInvocation invocation)
     {
         List<String> list = new ArrayList<>();
         while (!invocation.isConsumed())
         {
-            list.add(invocation.providers().read(String.class, String.class, invocation).toString());
+            ParseResult<?> read = invocation.providers().tryRead(String.class, String.class, invocation);
+            if (!read.isSuccess())
+            {
+                return read.asFailure();
+            }
+            list.add(read.getValue().toString());
         }
-        return list.toArray(new String[list.size()]);
+        return ParseResult.success(list.toArray(new String[list.size()]));
     }
 }
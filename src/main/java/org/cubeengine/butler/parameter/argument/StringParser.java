@@ -33,4 +33,10 @@ public final class StringParser implements ArgumentParser<String>
         invocation.consume(1);
         return result;
     }
+
+    @Override
+    public ParseResult<String> tryParse(Class type, CommandInvocation invocation)
+    {
+        return ParseResult.success(this.parse(type, invocation));
+    }
 }
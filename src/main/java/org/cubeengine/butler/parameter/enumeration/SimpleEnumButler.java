@@ -27,9 +27,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.function.Supplier;
 import org.cubeengine.butler.Butler;
 import org.cubeengine.butler.CommandInvocation;
 import org.cubeengine.butler.CompletionHelper;
+import org.cubeengine.butler.SuggestionSink;
+import org.cubeengine.butler.parameter.argument.ParseResult;
 import org.cubeengine.butler.parameter.argument.ParserException;
 
 /**
@@ -84,19 +87,33 @@ public class SimpleEnumButler implements Butler
 
     @Override
     public Object parse(Class type, CommandInvocation invocation) throws ParserException
+    {
+        return this.tryParse(type, invocation).getValue();
+    }
+
+    @Override
+    public ParseResult<Object> tryParse(Class type, CommandInvocation invocation)
     {
         if (!isEnum(type))
         {
             throw new UnsupportedOperationException();
         }
         EnumMetadata metadata = lookupMetadata(type);
-        Enum<?> constant = metadata.getConstantLookup().get(toEnumName(invocation.currentToken()));
+        final String token = invocation.currentToken();
+        Enum<?> constant = metadata.getConstantLookup().get(toEnumName(token));
         if (constant == null)
         {
-            throw new ParserException("Could not find \"" + invocation.currentToken() + "\" in Enum");
+            return ParseResult.failure(new Supplier<RuntimeException>()
+            {
+                @Override
+                public RuntimeException get()
+                {
+                    return new ParserException("Could not find \"" + token + "\" in Enum");
+                }
+            });
         }
         invocation.consume(1);
-        return constant;
+        return ParseResult.<Object>success(constant);
     }
 
     @Override
@@ -113,4 +130,18 @@ public class SimpleEnumButler implements Butler
         }
         return CompletionHelper.complete(toEnumName(invocation.currentToken()), metadata.getNames());
     }
+
+    @Override
+    public void suggest(Class type, CommandInvocation invocation, SuggestionSink sink)
+    {
+        if (!isEnum(type))
+        {
+            return;
+        }
+        EnumMetadata metadata = lookupMetadata(type);
+        if (metadata != null)
+        {
+            CompletionHelper.complete(toEnumName(invocation.currentToken()), metadata.getNames(), sink);
+        }
+    }
 }
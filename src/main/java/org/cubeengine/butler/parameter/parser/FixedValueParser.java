@@ -23,15 +23,17 @@
 package org.cubeengine.butler.parameter.parser;
 
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.SuggestionSink;
 import org.cubeengine.butler.parameter.FixedValues;
 import org.cubeengine.butler.parameter.Parameter;
 import org.cubeengine.butler.parameter.ParsedParameter;
+import org.cubeengine.butler.parameter.argument.ParseResult;
 import org.cubeengine.butler.parameter.property.Properties;
 
 public class FixedValueParser extends IndexedParser
@@ -69,10 +71,9 @@ public class FixedValueParser extends IndexedParser
     @Override
     public boolean isPossible(CommandInvocation invocation)
     {
-        String token = invocation.currentToken();
         for (String key : getFixedValues())
         {
-            if (key.equalsIgnoreCase(token))
+            if (invocation.tokenEqualsIgnoreCase(invocation.consumed(), key))
             {
                 return true;
             }
@@ -83,20 +84,30 @@ public class FixedValueParser extends IndexedParser
     @Override
     public List<String> getSuggestions(CommandInvocation invocation)
     {
-        List<String> result = new ArrayList<>();
+        SuggestionSink sink = new SuggestionSink();
+        this.getSuggestions(invocation, sink);
+        return sink.toList();
+    }
+
+    @Override
+    public void getSuggestions(CommandInvocation invocation, SuggestionSink sink)
+    {
         String token = invocation.currentToken().toLowerCase();
         for (String key : getFixedValues())
         {
+            if (sink.isFull())
+            {
+                return;
+            }
             if (key.startsWith(token))
             {
-                result.add(key);
+                sink.add(key);
             }
         }
-        return result;
     }
 
     @Override
-    public void parse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
+    public ParseResult<Void> tryParse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
     {
         String token = invocation.consume(1);
         for (String key : getFixedValues())
@@ -104,10 +115,17 @@ public class FixedValueParser extends IndexedParser
             if (key.equalsIgnoreCase(token))
             {
                 params.add(ParsedParameter.of(parameter, fixedValues.get(key), token));
-                return;
+                return ParseResult.success();
             }
         }
-        throw new IllegalStateException();
+        return ParseResult.failure(new Supplier<RuntimeException>()
+        {
+            @Override
+            public RuntimeException get()
+            {
+                return new IllegalStateException();
+            }
+        });
     }
 
     public Set<String> getFixedValues()
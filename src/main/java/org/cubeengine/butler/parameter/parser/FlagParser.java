@@ -24,9 +24,11 @@ package org.cubeengine.butler.parameter.parser;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import org.cubeengine.butler.CommandInvocation;
 import org.cubeengine.butler.parameter.Parameter;
 import org.cubeengine.butler.parameter.ParsedParameter;
+import org.cubeengine.butler.parameter.argument.ParseResult;
 import org.cubeengine.butler.parameter.property.Properties;
 
 public class FlagParser implements ParameterParser
@@ -51,27 +53,37 @@ public class FlagParser implements ParameterParser
     @Override
     public boolean isPossible(CommandInvocation invocation)
     {
-        String token = invocation.currentToken();
-        if (token.startsWith("-"))
-        {
-            token = token.substring(1);
-            if (name().equalsIgnoreCase(token) || longName().equalsIgnoreCase(token))
-            {
-                return true;
-            }
-        }
-        return false;
+        return org.cubeengine.butler.parameter.argument.FlagParser.isFlag(invocation, name())
+            || org.cubeengine.butler.parameter.argument.FlagParser.isFlag(invocation, longName());
     }
 
     @Override
     public void parse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
     {
-        ParsedParameter parsedParameter = this.parseValue(invocation);
-        if (parsedParameter.getParsedValue() == null)
+        this.tryParse(invocation, params, suggestions).getValue();
+    }
+
+    @Override
+    public ParseResult<Void> tryParse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
+    {
+        ParseResult<ParsedParameter> result = SimpleParser.tryParseValue(invocation, parameter);
+        if (!result.isSuccess())
         {
-            throw new IllegalArgumentException("Invalid CommandCall! Flag should be validated but was not valid.");
+            return result.asFailure();
+        }
+        if (result.getValue().getParsedValue() == null)
+        {
+            return ParseResult.failure(new Supplier<RuntimeException>()
+            {
+                @Override
+                public RuntimeException get()
+                {
+                    return new IllegalArgumentException("Invalid CommandCall! Flag should be validated but was not valid.");
+                }
+            });
         }
-        params.add(parsedParameter);
+        params.add(result.getValue());
+        return ParseResult.success();
     }
 
     @Override
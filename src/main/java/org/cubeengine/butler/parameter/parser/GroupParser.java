@@ -24,33 +24,59 @@ package org.cubeengine.butler.parameter.parser;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import org.cubeengine.butler.exception.CommandException;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.Tokenizer.Spans;
+import org.cubeengine.butler.SuggestionSink;
 import org.cubeengine.butler.parameter.Parameter;
 import org.cubeengine.butler.parameter.ParsedParameter;
 import org.cubeengine.butler.parameter.ParsedParameters;
 import org.cubeengine.butler.parameter.TooFewArgumentsException;
 import org.cubeengine.butler.parameter.TooManyArgumentsException;
+import org.cubeengine.butler.parameter.argument.ParseResult;
 import org.cubeengine.butler.parameter.property.Properties;
 import org.cubeengine.butler.parametric.Group;
 
 import static org.cubeengine.butler.parameter.parser.ParameterParser.ParameterType.GROUP;
 import static org.cubeengine.butler.parameter.parser.ParameterParser.ParameterType.NAMED;
-import static org.cubeengine.butler.parameter.property.Requirement.isRequired;
 
 /**
  * A ParameterGroup providing grouped Parameters
  */
 public class GroupParser implements ParameterParser
 {
+    private static final Supplier<RuntimeException> TOO_MANY = new Supplier<RuntimeException>()
+    {
+        @Override
+        public RuntimeException get()
+        {
+            return new TooManyArgumentsException();
+        }
+    };
+    private static final Supplier<RuntimeException> TOO_FEW = new Supplier<RuntimeException>()
+    {
+        @Override
+        public RuntimeException get()
+        {
+            return new TooFewArgumentsException();
+        }
+    };
+
     private final List<Parameter> flags;
     private final List<Parameter> nonPositional;
     private final List<Parameter> positional;
+    private final ParsePlan plan;
 
     private Parameter parameter;
 
+    private final Map<Object, Snapshot> snapshots = new WeakHashMap<>(); // the last completion parse per CommandSource
+
     public GroupParser(Parameter parameter, Class<?> clazz, List<Parameter> parameters)
     {
         this.parameter = parameter;
@@ -83,30 +109,65 @@ public class GroupParser implements ParameterParser
         this.flags = Collections.unmodifiableList(flags);
         this.nonPositional = Collections.unmodifiableList(nonPositional);
         this.positional = Collections.unmodifiableList(positional);
+        this.plan = new ParsePlan(this.flags, this.nonPositional, this.positional);
+    }
+
+    /**
+     * Returns the plan compiled from the parameters of this group
+     *
+     * @return the plan
+     */
+    public ParsePlan getPlan()
+    {
+        return plan;
     }
 
     @Override
     public void parse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggs)
     {
-        List<Parameter> flags = new ArrayList<>(this.flags);
-        List<Parameter> nonPositional = new ArrayList<>(this.nonPositional);
-        List<Parameter> positional = new ArrayList<>(this.positional);
-        Parameter greedy = null;
+        this.tryParse(invocation, params, suggs).getValue();
+    }
+
+    @Override
+    public ParseResult<Void> tryParse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggs)
+    {
+        List<Parameter> flags;
+        List<Parameter> nonPositional;
+        List<Parameter> positional;
+        Parameter greedy;
+
+        int start = invocation.consumed();
+        Snapshot resumed = suggs == null ? null : this.resume(invocation);
+        if (resumed == null)
+        {
+            flags = new ArrayList<>(this.flags);
+            nonPositional = new ArrayList<>(this.nonPositional);
+            positional = new ArrayList<>(this.positional);
+            greedy = null;
+        }
+        else
+        {
+            flags = new ArrayList<>(Arrays.asList(resumed.flags));
+            nonPositional = new ArrayList<>(Arrays.asList(resumed.nonPositional));
+            positional = new ArrayList<>(Arrays.asList(resumed.positional));
+            greedy = resumed.greedy;
+            invocation.reset(resumed.consumed);
+        }
 
         // Parse until invocation is consumed
         while (!invocation.isConsumed())
         {
-            List<Parameter> suggestions = suggestParameters(invocation, positional, nonPositional, flags, greedy);
-
             if (suggs != null && invocation.tokens().size() - invocation.consumed() == 1)
             {
-                suggs.addAll(suggestions); // Suggest indexed first then named then flags
-                return;
+                this.snapshot(invocation, start, flags, nonPositional, positional, greedy);
+                // Suggest indexed first then named then flags
+                suggs.addAll(suggestParameters(invocation, positional, nonPositional, flags, greedy));
+                return ParseResult.success();
             }
 
-            Collections.reverse(suggestions); // Try flags first then named then indexed
+            List<Parameter> suggestions = candidates(invocation, positional, nonPositional, flags, greedy);
             boolean parsed = false;
-            RuntimeException exception = null;
+            ParseResult<Void> failure = null;
             int consumed = invocation.consumed();
             for (Parameter parameter : suggestions)
             {
@@ -115,97 +176,146 @@ public class GroupParser implements ParameterParser
                     if (suggs != null && parameter.getParameterType() == NAMED
                         && invocation.tokens().size() - consumed <= parameter.getGreed())
                     {
+                        this.snapshot(invocation, start, flags, nonPositional, positional, greedy);
                         suggs.add(parameter);
-                        return;
+                        return ParseResult.success();
                     }
-                    try
+                    List<ParsedParameter> newParams = new ArrayList<>();
+                    ParsedParameter continued = null;
+                    if (parameter.getGreed() == Parameter.INFINITE)
                     {
-                        List<ParsedParameter> newParams = new ArrayList<>();
-                        if (parameter.getGreed() == Parameter.INFINITE)
+                        if (!params.isEmpty())
                         {
-                            if (!params.isEmpty())
+                            int last = params.size() - 1;
+                            if (params.get(last).getParameter() == parameter)
                             {
-                                int last = params.size() - 1;
-                                if (params.get(last).getParameter() == parameter)
-                                {
-                                    newParams.add(params.remove(last));
-                                }
+                                continued = params.remove(last);
+                                newParams.add(continued);
                             }
-
-                            greedy = parameter;
                         }
-                        parameter.parse(invocation, newParams, suggs);
-                        parsed = true;
-                        flags.remove(parameter);
-                        nonPositional.remove(parameter);
-                        positional.remove(parameter);
 
-                        if (newParams.size() == 1)
+                        greedy = parameter;
+                    }
+                    ParseResult<Void> result = parameter.tryParse(invocation, newParams, suggs);
+                    if (!result.isSuccess())
+                    {
+                        // try the next candidate
+                        invocation.reset(consumed);
+                        if (continued != null)
                         {
-                            params.add(newParams.get(0));
+                            params.add(continued);
                         }
-                        else
-                        {
-                            Object parsedValue = newParams;
-                            if (parameter.getType() != null && Group.class.isAssignableFrom(parameter.getType()))
-                            {
-                                parsedValue = readGroup(((Class<? extends Group>)parameter.getType()), newParams);
-                            }
-                            params.add(ParsedParameter.of(parameter, parsedValue, null));
-                        }
-                        break;
+                        failure = result;
+                        continue;
                     }
-                    catch (RuntimeException e)
+                    parsed = true;
+                    flags.remove(parameter);
+                    nonPositional.remove(parameter);
+                    positional.remove(parameter);
+
+                    if (newParams.size() == 1)
                     {
-                        invocation.reset(consumed);
-                        exception = e;
+                        params.add(newParams.get(0));
+                    }
+                    else
+                    {
+                        Object parsedValue = newParams;
+                        if (suggs == null && parameter.getType() != null && Group.class.isAssignableFrom(parameter.getType()))
+                        {
+                            parsedValue = readGroup(((Class<? extends Group>)parameter.getType()), newParams);
+                        }
+                        params.add(ParsedParameter.of(parameter, parsedValue, null));
                     }
+                    break;
                 }
             }
             if (!parsed)
             {
-                if (exception == null)
-                {
-                    throw new TooManyArgumentsException();
-                }
-                else
-                {
-                    throw exception;
-                }
+                return failure == null ? ParseResult.<Void>failure(TOO_MANY) : failure;
             }
         }
 
         // Parse remaining parameters using default values or error out when too few arguments
-        // First positional
-        for (Parameter parameter : positional)
+        // First positional then non-positional
+        if (addDefaults(invocation, params, suggs, positional) && addDefaults(invocation, params, suggs, nonPositional))
         {
-            if (parameter.getDefaultProvider() != null)
-            {
-                params.add(ParsedParameter.of(parameter, invocation.providers().getDefault(parameter.getDefaultProvider(), invocation), null));
-                continue;
-            }
-            if (isRequired(parameter) && suggs == null)
-            {
-                throw new TooFewArgumentsException();
-            }
+            // flags always default to false
+            return ParseResult.success();
         }
-        // then non-positional
-        for (Parameter parameter : nonPositional)
+        return ParseResult.failure(TOO_FEW);
+    }
+
+    /**
+     * Adds the default values of the missing parameters
+     *
+     * @return false if a required parameter is missing
+     */
+    private boolean addDefaults(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggs,
+                                List<Parameter> missing)
+    {
+        for (Parameter parameter : missing)
         {
-            if (parameter.getDefaultProvider() != null)
+            Class<?> defaultProvider = plan.getDefaultProvider(parameter);
+            if (defaultProvider != null)
             {
-                params.add(ParsedParameter.of(parameter, invocation.providers().getDefault(parameter.getDefaultProvider(), invocation), null));
+                params.add(ParsedParameter.of(parameter, invocation.providers().getDefault(defaultProvider, invocation), null));
                 continue;
             }
-            if (isRequired(parameter) && parameter.getGreed() != Parameter.INFINITE)
+            if (plan.isRequired(parameter) && suggs == null)
             {
-                if (suggs == null)
-                {
-                    throw new TooFewArgumentsException();
-                }
+                return false;
             }
         }
-        // flags always default to false
+        return true;
+    }
+
+    /**
+     * Remembers the remaining parameters before the current token for the next completion by the same CommandSource
+     */
+    private void snapshot(CommandInvocation invocation, int start, List<Parameter> flags, List<Parameter> nonPositional,
+                          List<Parameter> positional, Parameter greedy)
+    {
+        int consumed = invocation.consumed();
+        if (consumed == start)
+        {
+            return; // nothing to skip
+        }
+        String prefix = invocation.getCommandLine().substring(0, invocation.spans().start(consumed));
+        Snapshot snapshot = new Snapshot(prefix, start, consumed, invocation.providers().getGeneration(),
+                                         flags, nonPositional, positional, greedy);
+        synchronized (this.snapshots)
+        {
+            this.snapshots.put(invocation.getCommandSource(), snapshot);
+        }
+    }
+
+    /**
+     * Returns the snapshot of the previous completion by the same CommandSource
+     * if the commandline before its token is unchanged
+     *
+     * @param invocation the invocation
+     *
+     * @return the snapshot to resume from or null
+     */
+    private Snapshot resume(CommandInvocation invocation)
+    {
+        Snapshot snapshot;
+        synchronized (this.snapshots)
+        {
+            snapshot = this.snapshots.get(invocation.getCommandSource());
+        }
+        if (snapshot == null || snapshot.start != invocation.consumed()
+            || snapshot.generation != invocation.providers().getGeneration())
+        {
+            return null;
+        }
+        Spans spans = invocation.spans();
+        if (snapshot.consumed >= spans.size() || spans.start(snapshot.consumed) != snapshot.prefix.length()
+            || !invocation.getCommandLine().startsWith(snapshot.prefix))
+        {
+            return null;
+        }
+        return snapshot;
     }
 
     private Group readGroup(Class<? extends Group> type, List<ParsedParameter> params)
@@ -226,6 +336,48 @@ public class GroupParser implements ParameterParser
         }
     }
 
+    /**
+     * Gets the parameters to try for the current token in order.
+     * A token naming a flag or a named parameter is looked up in the plan, otherwise the next positional is tried.
+     *
+     * @param invocation    the invocation
+     * @param positional    the remaining positional parameters
+     * @param nonPositional the remaining non positional parameters
+     * @param flags         the remaining flags
+     * @param greedy        the greedy parameter
+     */
+    private List<Parameter> candidates(CommandInvocation invocation, List<Parameter> positional,
+                                       List<Parameter> nonPositional, List<Parameter> flags, Parameter greedy)
+    {
+        List<Parameter> candidates = new ArrayList<>(3);
+        int index = invocation.consumed();
+        if (!flags.isEmpty() && invocation.tokenStartsWithIgnoreCase(index, 0, "-"))
+        {
+            Parameter flag = plan.getFlag(invocation, index);
+            if (flag != null && flags.contains(flag) && flag.isAllowed(invocation))
+            {
+                candidates.add(flag);
+            }
+        }
+        if (!nonPositional.isEmpty())
+        {
+            Parameter named = plan.getNamed(invocation, index);
+            if (named != null && nonPositional.contains(named) && named.isAllowed(invocation))
+            {
+                candidates.add(named);
+            }
+        }
+        if (!positional.isEmpty() && positional.get(0).isAllowed(invocation))
+        {
+            candidates.add(positional.get(0));
+        }
+        if (greedy != null && greedy.isAllowed(invocation))
+        {
+            candidates.add(greedy);
+        }
+        return candidates;
+    }
+
     /**
      * Gets a list of possible parameters
      *
@@ -275,23 +427,41 @@ public class GroupParser implements ParameterParser
 
     @Override
     public List<String> getSuggestions(CommandInvocation invocation)
+    {
+        SuggestionSink sink = new SuggestionSink();
+        this.getSuggestions(invocation, sink);
+        return sink.toList();
+    }
+
+    @Override
+    public void getSuggestions(CommandInvocation invocation, SuggestionSink sink)
     {
         List<Parameter> suggs = new ArrayList<>();
-        try
-        {
-            ParsedParameters parsed = new ParsedParameters();
-            invocation.setProperty(parsed);
-            parse(invocation, parsed.value(), suggs);
-        }
-        catch (CommandException ignored)
+        ParsedParameters parsed = invocation.newParsedParameters();
+        this.tryParse(invocation, parsed.value(), suggs); // a failed parse has nothing more to suggest
+        for (Parameter parameter : suggs)
         {
+            if (sink.isFull())
+            {
+                return;
+            }
+            parameter.getSuggestions(invocation, sink);
         }
-        List<String> result = new ArrayList<>();
+    }
+
+    @Override
+    public void getSuggestionsAsync(CommandInvocation invocation, SuggestionSink sink,
+                                    List<CompletableFuture<List<String>>> futures)
+    {
+        List<Parameter> suggs = new ArrayList<>();
+        ParsedParameters parsed = invocation.newParsedParameters();
+        this.tryParse(invocation, parsed.value(), suggs);
+        int consumed = invocation.consumed();
         for (Parameter parameter : suggs)
         {
-            result.addAll(parameter.getSuggestions(invocation));
+            invocation.reset(consumed);
+            parameter.getSuggestionsAsync(invocation, sink, futures);
         }
-        return result;
     }
 
     public List<Parameter> getFlags()
@@ -314,4 +484,33 @@ public class GroupParser implements ParameterParser
     {
         return GROUP;
     }
+
+    /**
+     * The remaining parameters of a completion parse before its last token.
+     * Completions are parsed structurally so no parsed values are kept.
+     */
+    private static final class Snapshot
+    {
+        private final String prefix;
+        private final int start;
+        private final int consumed;
+        private final long generation;
+        private final Parameter[] flags;
+        private final Parameter[] nonPositional;
+        private final Parameter[] positional;
+        private final Parameter greedy;
+
+        private Snapshot(String prefix, int start, int consumed, long generation, List<Parameter> flags,
+                         List<Parameter> nonPositional, List<Parameter> positional, Parameter greedy)
+        {
+            this.prefix = prefix;
+            this.start = start;
+            this.consumed = consumed;
+            this.generation = generation;
+            this.flags = flags.toArray(new Parameter[flags.size()]);
+            this.nonPositional = nonPositional.toArray(new Parameter[nonPositional.size()]);
+            this.positional = positional.toArray(new Parameter[positional.size()]);
+            this.greedy = greedy;
+        }
+    }
 }
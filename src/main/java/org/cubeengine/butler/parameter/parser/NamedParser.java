@@ -22,12 +22,13 @@
  */
 package org.cubeengine.butler.parameter.parser;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.SuggestionSink;
 import org.cubeengine.butler.parameter.Parameter;
 import org.cubeengine.butler.parameter.ParsedParameter;
+import org.cubeengine.butler.parameter.argument.ParseResult;
 import org.cubeengine.butler.parameter.property.Properties;
 
 public class NamedParser extends SimpleParser
@@ -40,23 +41,24 @@ public class NamedParser extends SimpleParser
     }
 
     @Override
-    public void parse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
+    public ParseResult<Void> tryParse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
     {
-        String token = invocation.currentToken();
-        for (String name : getNames())
+        if (isName(invocation))
         {
-            if (name.equalsIgnoreCase(token))
-            {
-                invocation.consume(1); // TODO perhaps remember parsed name
-                break;
-            }
+            invocation.skip(1); // TODO perhaps remember parsed name
         }
         // do not parse value if suggestion and last token
         if (suggestions != null && (invocation.consumed() >= invocation.tokens().size() - 1))
         {
-            return;
+            return ParseResult.success();
         }
-        super.parse(invocation, params, suggestions);
+        return super.tryParse(invocation, params, suggestions);
+    }
+
+    @Override
+    protected int getValueGreed()
+    {
+        return parameter.getGreed() - 1; // without the name
     }
 
     public String[] getNames()
@@ -65,51 +67,60 @@ public class NamedParser extends SimpleParser
     }
 
     @Override
-    public List<String> getSuggestions(CommandInvocation invocation)
+    public void getSuggestions(CommandInvocation invocation, SuggestionSink sink)
     {
         int tokensLeft = invocation.tokens().size() - invocation.consumed();
         if (tokensLeft == 1)
         {
-            ArrayList<String> result = new ArrayList<>();
             String token = invocation.currentToken().toLowerCase();
             for (String name : getNames())
             {
-                if (name.startsWith(token))
+                if (name.startsWith(token) && !sink.isFull())
                 {
-                    result.add(name);
+                    sink.add(name);
                 }
             }
-            return result;
+            return;
+        }
+        if (isName(invocation))
+        {
+            invocation.skip(1);
+            super.getSuggestions(invocation, sink);
         }
-        if (Arrays.asList(getNames()).contains(invocation.currentToken().toLowerCase()))
+    }
+
+    @Override
+    public void getSuggestionsAsync(CommandInvocation invocation, SuggestionSink sink,
+                                    List<CompletableFuture<List<String>>> futures)
+    {
+        if (invocation.tokens().size() - invocation.consumed() == 1)
         {
-            invocation.consume(1);
+            futures.add(CompletableFuture.completedFuture(this.getSuggestions(invocation)));
+            return;
         }
-        else
+        if (isName(invocation))
         {
-            return new ArrayList<>();
+            invocation.skip(1);
+            super.getSuggestionsAsync(invocation, sink, futures);
         }
-        return super.getSuggestions(invocation);
     }
 
     @Override
     public boolean isPossible(CommandInvocation invocation)
     {
-        return isName(invocation.currentToken()) && super.isPossible(invocation);
+        return isName(invocation) && super.isPossible(invocation);
     }
 
-    private boolean isName(String token)
+    private boolean isName(CommandInvocation invocation)
     {
-        boolean isPossible = false;
         for (String name : getNames())
         {
-            if (name.equalsIgnoreCase(token))
+            if (invocation.tokenEqualsIgnoreCase(invocation.consumed(), name))
             {
-                isPossible = true;
-                break;
+                return true;
             }
         }
-        return isPossible;
+        return false;
     }
 
     @Override
@@ -23,18 +23,63 @@
 package org.cubeengine.butler.parameter.parser;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.SuggestionSink;
 import org.cubeengine.butler.parameter.Parameter;
 import org.cubeengine.butler.parameter.ParsedParameter;
+import org.cubeengine.butler.parameter.argument.ParseResult;
 
 public interface ParameterParser
 {
     ParameterType getType();
 
     void parse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions);
+
+    /**
+     * Parses like {@link #parse(CommandInvocation, List, List)} but returns failures instead of throwing them.
+     * Parsers should override this when failing is part of their normal operation.
+     *
+     * @param invocation  the invocation
+     * @param params      the parsed parameters
+     * @param suggestions the parameters to suggest for or null if not completing
+     *
+     * @return the result
+     */
+    default ParseResult<Void> tryParse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
+    {
+        try
+        {
+            this.parse(invocation, params, suggestions);
+            return ParseResult.success();
+        }
+        catch (RuntimeException e)
+        {
+            return ParseResult.failure(e);
+        }
+    }
+
     boolean isPossible(CommandInvocation invocation);
     List<String> getSuggestions(CommandInvocation invocation);
 
+    default void getSuggestions(CommandInvocation invocation, SuggestionSink sink)
+    {
+        sink.addAll(this.getSuggestions(invocation));
+    }
+
+    /**
+     * Adds the future suggestions of this parser to given list
+     *
+     * @param invocation the invocation
+     * @param sink       the sink the suggestions are collected in, to be marked volatile if needed
+     * @param futures    the future suggestions
+     */
+    default void getSuggestionsAsync(CommandInvocation invocation, SuggestionSink sink,
+                                     List<CompletableFuture<List<String>>> futures)
+    {
+        futures.add(CompletableFuture.completedFuture(this.getSuggestions(invocation)));
+    }
+
 
     enum ParameterType
     {
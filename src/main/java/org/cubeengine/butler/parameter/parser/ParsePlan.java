@@ -0,0 +1,187 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.parameter.parser;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.cubeengine.butler.AliasIndex;
+import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.parameter.Parameter;
+import org.cubeengine.butler.parameter.TooFewArgumentsException;
+import org.cubeengine.butler.parameter.property.Properties;
+import org.cubeengine.butler.parameter.property.Requirement;
+
+/**
+ * The immutable plan of a {@link GroupParser} compiled when it is built.
+ * <p>It maps the names of flags and named parameters to their parameters and knows how many tokens
+ * the group needs at least, assuming the {@link Properties#GREED greed} of a parameter is the amount of tokens
+ * it consumes. An ArgumentParser may consume more tokens than its greed so there is no maximum.</p>
+ */
+public final class ParsePlan
+{
+    private final AliasIndex<Parameter> flags;
+    private final AliasIndex<Parameter> named;
+    private final List<Parameter> positional;
+    private final Map<Parameter, Boolean> required = new IdentityHashMap<>();
+    private final Map<Parameter, Class<?>> defaults = new IdentityHashMap<>();
+    private final int minTokens;
+
+    ParsePlan(List<Parameter> flags, List<Parameter> nonPositional, List<Parameter> positional)
+    {
+        this.positional = positional;
+        int min = 0;
+        Map<String, Parameter> flagNames = new HashMap<>();
+        for (Parameter flag : flags)
+        {
+            flagNames.put("-" + flag.<String>getProperty(Properties.FLAG_NAME).toLowerCase(), flag);
+            flagNames.put("-" + flag.<String>getProperty(Properties.FLAG_LONGNAME).toLowerCase(), flag);
+        }
+        this.flags = new AliasIndex<>(flagNames);
+        Map<String, Parameter> names = new HashMap<>();
+        for (Parameter parameter : nonPositional)
+        {
+            for (String name : parameter.<String[]>getProperty(Properties.NAMES))
+            {
+                names.put(name.toLowerCase(), parameter);
+            }
+        }
+        this.named = new AliasIndex<>(names);
+        for (Parameter parameter : nonPositional)
+        {
+            this.compile(parameter, false);
+            min += this.required.get(parameter) ? minTokens(parameter) : 0;
+        }
+        for (Parameter parameter : positional)
+        {
+            this.compile(parameter, true);
+            min += this.required.get(parameter) ? minTokens(parameter) : 0;
+        }
+        this.minTokens = min;
+    }
+
+    private void compile(Parameter parameter, boolean positional)
+    {
+        Class<?> defaultProvider = parameter.getDefaultProvider();
+        boolean required = defaultProvider == null && Requirement.isRequired(parameter);
+        if (!positional && parameter.getGreed() == Parameter.INFINITE)
+        {
+            required = false; // greedy named parameters are never missing
+        }
+        this.required.put(parameter, required);
+        if (defaultProvider != null)
+        {
+            this.defaults.put(parameter, defaultProvider);
+        }
+    }
+
+    private static int minTokens(Parameter parameter)
+    {
+        if (parameter.getParser() instanceof GroupParser)
+        {
+            return ((GroupParser)parameter.getParser()).getPlan().getMinTokens();
+        }
+        return Math.max(1, parameter.getGreed());
+    }
+
+    /**
+     * Returns the flag the token at given index names without creating the token
+     *
+     * @param invocation the invocation
+     * @param index      the index of the token
+     *
+     * @return the flag or null
+     */
+    public Parameter getFlag(CommandInvocation invocation, int index)
+    {
+        return this.flags.get(invocation, index);
+    }
+
+    /**
+     * Returns the named parameter the token at given index names without creating the token
+     *
+     * @param invocation the invocation
+     * @param index      the index of the token
+     *
+     * @return the named parameter or null
+     */
+    public Parameter getNamed(CommandInvocation invocation, int index)
+    {
+        return this.named.get(invocation, index);
+    }
+
+    public List<Parameter> getPositional()
+    {
+        return Collections.unmodifiableList(positional);
+    }
+
+    /**
+     * Returns whether a missing parameter is an error
+     *
+     * @param parameter the parameter
+     *
+     * @return true if the parameter is required and has no default value
+     */
+    public boolean isRequired(Parameter parameter)
+    {
+        return Boolean.TRUE.equals(this.required.get(parameter));
+    }
+
+    /**
+     * Returns the provider of the default value of a parameter
+     *
+     * @param parameter the parameter
+     *
+     * @return the default provider or null
+     */
+    public Class<?> getDefaultProvider(Parameter parameter)
+    {
+        return this.defaults.get(parameter);
+    }
+
+    /**
+     * Returns the minimum amount of tokens
+     *
+     * @return the minimum amount of tokens
+     */
+    public int getMinTokens()
+    {
+        return minTokens;
+    }
+
+
+    /**
+     * Rejects given invocation if there are fewer remaining tokens than required by this plan
+     *
+     * @param invocation the invocation
+     */
+    public void checkArity(CommandInvocation invocation)
+    {
+        if (invocation.tokens().size() - invocation.consumed() < this.minTokens)
+        {
+            throw new TooFewArgumentsException();
+        }
+    }
+}
@@ -22,14 +22,17 @@
  */
 package org.cubeengine.butler.parameter.parser;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.SuggestionSink;
 import org.cubeengine.butler.parameter.argument.Completer;
+import org.cubeengine.butler.parameter.argument.VolatileCompleter;
 import org.cubeengine.butler.parameter.Parameter;
 import org.cubeengine.butler.parameter.ParsedParameter;
 import org.cubeengine.butler.parameter.property.Properties;
 import org.cubeengine.butler.parameter.argument.ArgumentParser;
+import org.cubeengine.butler.parameter.argument.ParseResult;
 
 /**
  * A Parameter implementation.
@@ -46,7 +49,23 @@ public abstract class SimpleParser implements ParameterParser
     @Override
     public void parse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
     {
-        ParsedParameter pParam = this.parseValue(invocation);
+        this.tryParse(invocation, params, suggestions).getValue();
+    }
+
+    @Override
+    public ParseResult<Void> tryParse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
+    {
+        if (suggestions != null)
+        {
+            this.skipValue(invocation, params);
+            return ParseResult.success();
+        }
+        ParseResult<ParsedParameter> result = this.tryParseValue(invocation);
+        if (!result.isSuccess())
+        {
+            return result.asFailure();
+        }
+        ParsedParameter pParam = result.getValue();
         if (!params.isEmpty() && params.get(params.size() - 1).getParameter().equals(pParam.getParameter()))
         {
             ParsedParameter last = params.remove(params.size() - 1);
@@ -54,6 +73,41 @@ public abstract class SimpleParser implements ParameterParser
             pParam = ParsedParameter.of(pParam.getParameter(), joined, joined);
         }
         params.add(pParam);
+        return ParseResult.success();
+    }
+
+    /**
+     * Skips the tokens of the value without converting it.
+     * Completions only need to know which parameter the last token belongs to.
+     *
+     * @param invocation the invocation
+     * @param params     the parsed parameters
+     */
+    private void skipValue(CommandInvocation invocation, List<ParsedParameter> params)
+    {
+        ParsedParameter previous = null;
+        if (!params.isEmpty() && params.get(params.size() - 1).getParameter().equals(parameter))
+        {
+            previous = params.remove(params.size() - 1);
+        }
+        int start = invocation.consumed();
+        invocation.skip(Math.max(1, this.getValueGreed()));
+        String tokens = invocation.tokensSince(start);
+        if (previous != null)
+        {
+            tokens = previous.getRawValue() + " " + tokens;
+        }
+        params.add(new UnconvertedParameter(parameter, tokens, start, previous));
+    }
+
+    /**
+     * Returns the amount of tokens of the value
+     *
+     * @return the amount of tokens
+     */
+    protected int getValueGreed()
+    {
+        return parameter.getGreed();
     }
 
     @Override
@@ -67,7 +121,42 @@ public abstract class SimpleParser implements ParameterParser
     @Override
     public List<String> getSuggestions(CommandInvocation invocation)
     {
-        List<String> result = new ArrayList<>();
+        SuggestionSink sink = new SuggestionSink();
+        this.getSuggestions(invocation, sink);
+        return sink.toList();
+    }
+
+    @Override
+    public void getSuggestions(CommandInvocation invocation, SuggestionSink sink)
+    {
+        Completer completer = getCompleter(invocation);
+        if (completer != null)
+        {
+            if (completer instanceof VolatileCompleter)
+            {
+                sink.markVolatile();
+            }
+            completer.suggest(parameter.getType(), invocation, sink);
+        }
+    }
+
+    @Override
+    public void getSuggestionsAsync(CommandInvocation invocation, SuggestionSink sink,
+                                    List<CompletableFuture<List<String>>> futures)
+    {
+        Completer completer = getCompleter(invocation);
+        if (completer != null)
+        {
+            if (completer instanceof VolatileCompleter)
+            {
+                sink.markVolatile();
+            }
+            futures.add(completer.suggestAsync(parameter.getType(), invocation));
+        }
+    }
+
+    private Completer getCompleter(CommandInvocation invocation)
+    {
         Class completerClass = parameter.getProperty(Properties.COMPLETER);
         if (completerClass == null)
         {
@@ -75,15 +164,11 @@ public abstract class SimpleParser implements ParameterParser
         }
 
         Completer completer = invocation.providers().completers().get(completerClass);
-        if (completer != null)
-        {
-            result.addAll(completer.suggest(parameter.getType(), invocation));
-        }
-        else
+        if (completer == null)
         {
             System.out.println("No completer found for " + completerClass);
         }
-        return result;
+        return completer;
     }
 
     /**
@@ -98,20 +183,100 @@ public abstract class SimpleParser implements ParameterParser
         return parseValue(invocation, parameter);
     }
 
+    /**
+     * Parses this parameter using given CommandInvocation returning failures instead of throwing them
+     *
+     * @param invocation the CommandInvocation
+     *
+     * @return the result
+     */
+    protected ParseResult<ParsedParameter> tryParseValue(CommandInvocation invocation)
+    {
+        return tryParseValue(invocation, parameter);
+    }
+
     public static ParsedParameter parseValue(CommandInvocation invocation, Parameter parameter)
+    {
+        return tryParseValue(invocation, parameter).getValue();
+    }
+
+    /**
+     * Parses given parameter using given CommandInvocation returning failures instead of throwing them.
+     *
+     * @param invocation the CommandInvocation
+     * @param parameter  the parameter
+     *
+     * @return the result
+     */
+    public static ParseResult<ParsedParameter> tryParseValue(CommandInvocation invocation, Parameter parameter)
     {
         int consumed = invocation.consumed();
         ArgumentParser reader = parameter.getProperty(Properties.ARGUMENT_PARSER);
-        Object read;
+        ParseResult<?> read;
         if (reader != null)
         {
-            read = reader.parse(parameter.getType(), invocation);
+            read = reader.tryParse(parameter.getType(), invocation);
         }
         else
         {
-            read = invocation.providers().read(parameter, invocation);
+            read = invocation.providers().tryRead(parameter, invocation);
+        }
+        if (!read.isSuccess())
+        {
+            return read.asFailure();
         }
         String tokens = invocation.tokensSince(consumed);
-        return ParsedParameter.of(parameter, read, tokens);
+        return ParseResult.success(ParsedParameter.of(parameter, read.getValue(), tokens));
+    }
+
+    /**
+     * A parameter parsed for a completion that is converted on request
+     */
+    private static final class UnconvertedParameter extends ParsedParameter
+    {
+        private final int start;
+        private final ParsedParameter previous;
+        private Object value;
+        private boolean converted = false;
+
+        private UnconvertedParameter(Parameter parameter, String rawValue, int start, ParsedParameter previous)
+        {
+            super(parameter, null, rawValue);
+            this.start = start;
+            this.previous = previous;
+        }
+
+        @Override
+        public Object getParsedValue()
+        {
+            return value;
+        }
+
+        @Override
+        public Object getParsedValue(CommandInvocation invocation)
+        {
+            if (!converted)
+            {
+                int consumed = invocation.consumed();
+                invocation.reset(start);
+                try
+                {
+                    Object read = parseValue(invocation, getParameter()).getParsedValue();
+                    value = previous == null ? read : previous.getParsedValue(invocation) + " " + read;
+                    converted = true;
+                }
+                finally
+                {
+                    invocation.reset(consumed);
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public boolean isConverted()
+        {
+            return converted;
+        }
     }
 }
@@ -22,6 +22,8 @@
  */
 package org.cubeengine.butler.parameter.property;
 
+import java.lang.reflect.Field;
+import java.util.Set;
 import org.cubeengine.butler.parameter.argument.Completer;
 import org.cubeengine.butler.parameter.parser.ParameterParser;
 import org.cubeengine.butler.parameter.argument.ArgumentParser;
@@ -30,29 +32,36 @@ import org.cubeengine.butler.parametric.builder.parameter.LabelProvider;
 
 public class Properties
 {
-    public static final String TYPE = "TYPE";
-    public static final String READER = "READER";
-    public static final Class<ArgumentParser> ARGUMENT_PARSER = ArgumentParser.class;
-    public static final Class<ParameterParser> PARSER = ParameterParser.class;
-    public static final Class<Filters> FILTERS = Filters.class;
-    public static final String FIXED_POSITION = "FIXED_POSITION";
-    public static final String FIELD_HOLDER = "FIELD_HOLDER";
-    public static final String METHOD_INDEX = "METHOD_INDEX";
-    public static final String GREED = "GREED";
+    public static final PropertyKey<Class<?>> TYPE = PropertyKey.create("TYPE", "TYPE");
+    public static final PropertyKey<Class<?>> READER = PropertyKey.create("READER", "READER");
+    public static final PropertyKey<ArgumentParser<?>> ARGUMENT_PARSER = PropertyKey.create("ARGUMENT_PARSER", ArgumentParser.class);
+    public static final PropertyKey<ParameterParser> PARSER = PropertyKey.create("PARSER", ParameterParser.class);
+    public static final PropertyKey<Filters> FILTERS = PropertyKey.create("FILTERS", Filters.class);
+    public static final PropertyKey<Integer> FIXED_POSITION = PropertyKey.create("FIXED_POSITION", "FIXED_POSITION");
+    public static final PropertyKey<Field> FIELD_HOLDER = PropertyKey.create("FIELD_HOLDER", "FIELD_HOLDER");
+    public static final PropertyKey<Integer> METHOD_INDEX = PropertyKey.create("METHOD_INDEX", "METHOD_INDEX");
+    public static final PropertyKey<Integer> GREED = PropertyKey.create("GREED", "GREED");
 
-    public static final String NAMES = "NAMES";
-    public static final String FIXED_VALUES = "FIXED_VALUES";
+    public static final PropertyKey<String[]> NAMES = PropertyKey.create("NAMES", "NAMES");
+    public static final PropertyKey<Set<String>> FIXED_VALUES = PropertyKey.create("FIXED_VALUES", "FIXED_VALUES");
 
-    public static final String FLAG_NAME = "FLAG_NAME";
-    public static final String FLAG_LONGNAME = "FLAG_LONGNAME";
+    public static final PropertyKey<String> FLAG_NAME = PropertyKey.create("FLAG_NAME", "FLAG_NAME");
+    public static final PropertyKey<String> FLAG_LONGNAME = PropertyKey.create("FLAG_LONGNAME", "FLAG_LONGNAME");
 
-    public static final String VALUE_LABEL = "VALUE_LABEL";
+    public static final PropertyKey<String> VALUE_LABEL = PropertyKey.create("VALUE_LABEL", "VALUE_LABEL");
 
-    public static final Class<Requirement> REQUIREMENT = Requirement.class;
-    public static final String DESCRIPTION = "DESCRIPTION";
-    public static final Class<Completer> COMPLETER = Completer.class;
+    public static final PropertyKey<Requirement> REQUIREMENT = PropertyKey.create("REQUIREMENT", Requirement.class);
+    public static final PropertyKey<String> DESCRIPTION = PropertyKey.create("DESCRIPTION", "DESCRIPTION");
+    public static final PropertyKey<Class<?>> COMPLETER = PropertyKey.create("COMPLETER", Completer.class);
 
-    public static final Class<DefaultValue> DEFAULT_PROVIDER = DefaultValue.class;
+    public static final PropertyKey<Class<?>> DEFAULT_PROVIDER = PropertyKey.create("DEFAULT_PROVIDER", DefaultValue.class);
 
-    public static final Class<LabelProvider> LABEL_PROVIDER = LabelProvider.class;
+    public static final PropertyKey<LabelProvider> LABEL_PROVIDER = PropertyKey.create("LABEL_PROVIDER", LabelProvider.class);
+
+    /**
+     * Initializes this class so the keys above are created and their legacy keys registered
+     */
+    static void init()
+    {
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.parameter.property;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A typed key for a property of a {@link org.cubeengine.butler.parameter.Parameter}
+ * <p>Every key gets a dense index which is used as the slot of its value in the parameter</p>
+ *
+ * @param <T> the type of the value
+ */
+public final class PropertyKey<T>
+{
+    private static final AtomicInteger COUNT = new AtomicInteger();
+    private static final Map<Object, PropertyKey<?>> LEGACY_KEYS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int index;
+
+    private PropertyKey(String name)
+    {
+        this.name = name;
+        this.index = COUNT.getAndIncrement();
+    }
+
+    /**
+     * Creates a new PropertyKey
+     *
+     * @param name the name of the key
+     * @param <T>  the type of the value
+     *
+     * @return the key
+     */
+    public static <T> PropertyKey<T> create(String name)
+    {
+        return new PropertyKey<>(name);
+    }
+
+    /**
+     * Creates a new PropertyKey that is also used for values offered under the legacy key
+     *
+     * @param name      the name of the key
+     * @param legacyKey the String or Class key used before
+     * @param <T>       the type of the value
+     *
+     * @return the key
+     */
+    public static <T> PropertyKey<T> create(String name, Object legacyKey)
+    {
+        PropertyKey<T> key = new PropertyKey<>(name);
+        LEGACY_KEYS.put(legacyKey, key);
+        return key;
+    }
+
+    /**
+     * Returns the PropertyKey for given key
+     *
+     * @param key a PropertyKey or a legacy key
+     *
+     * @return the PropertyKey or null if there is none for given key
+     */
+    public static PropertyKey<?> of(Object key)
+    {
+        if (key instanceof PropertyKey)
+        {
+            return (PropertyKey<?>)key;
+        }
+        Properties.init(); // registers the legacy keys of the built-in properties
+        return LEGACY_KEYS.get(key);
+    }
+
+    /**
+     * Returns the amount of PropertyKeys created so far
+     *
+     * @return the amount of keys
+     */
+    public static int count()
+    {
+        return COUNT.get();
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getIndex()
+    {
+        return index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
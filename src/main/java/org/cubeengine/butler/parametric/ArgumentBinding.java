@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.parametric;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.parameter.Parameter;
+import org.cubeengine.butler.parameter.ParsedParameter;
+import org.cubeengine.butler.parameter.ParsedParameters;
+import org.cubeengine.butler.parameter.parser.GroupParser;
+import org.cubeengine.butler.parameter.parser.ParameterParser.ParameterType;
+import org.cubeengine.butler.parameter.property.Properties;
+
+/**
+ * Binds the parsed parameters of a {@link ParametricCommandDescriptor} to the arguments of its method.
+ * <p>The binding is computed once per descriptor. The parsed values are written into a copy of the default arguments
+ * at the method index of their parameter.</p>
+ */
+public final class ArgumentBinding
+{
+    private final Class<?>[] contextTypes;
+    private final Parameter[] parameters; // by method index
+    private final Object[] defaults; // by method index
+
+    ArgumentBinding(ParametricCommandDescriptor descriptor)
+    {
+        Class<?>[] parameterTypes = descriptor.getInvokableMethod().getMethod().getParameterTypes();
+        this.contextTypes = new Class<?>[descriptor.getContextParameter() + 1];
+        System.arraycopy(parameterTypes, 0, this.contextTypes, 0, this.contextTypes.length);
+        this.parameters = new Parameter[parameterTypes.length];
+        this.defaults = new Object[parameterTypes.length];
+
+        Parameter params = descriptor.getParameters();
+        List<Parameter> list = new ArrayList<>();
+        if (params.getParser() instanceof GroupParser)
+        {
+            list.addAll(((GroupParser)params.getParser()).getFlags());
+            list.addAll(((GroupParser)params.getParser()).getNonPositional());
+            list.addAll(((GroupParser)params.getParser()).getPositional());
+        }
+        else
+        {
+            list.add(params);
+        }
+        for (Parameter parameter : list)
+        {
+            Integer index = parameter.getProperty(Properties.METHOD_INDEX);
+            if (index != null)
+            {
+                this.parameters[index] = parameter;
+                if (parameter.getParameterType() == ParameterType.FLAG)
+                {
+                    this.defaults[index] = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the arguments for the method from the contexts and parsed parameters of given invocation
+     *
+     * @param invocation the invocation
+     *
+     * @return the arguments
+     */
+    public Object[] bind(CommandInvocation invocation)
+    {
+        Object[] args = this.defaults.clone();
+        for (int i = 0; i < this.contextTypes.length; i++)
+        {
+            args[i] = invocation.getContext(this.contextTypes[i]);
+        }
+        for (ParsedParameter parsed : invocation.valueFor(ParsedParameters.class))
+        {
+            Parameter parameter = parsed.getParameter();
+            Integer index = parameter == null ? null : parameter.getProperty(Properties.METHOD_INDEX);
+            if (index != null && index < this.parameters.length && this.parameters[index] == parameter)
+            {
+                args[index] = parsed.getParsedValue();
+            }
+        }
+        return args;
+    }
+}
@@ -24,19 +24,22 @@ package org.cubeengine.butler.parametric;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.cubeengine.butler.AsyncCompletion;
 import org.cubeengine.butler.CommandInvocation;
 import org.cubeengine.butler.DiagnoseListener.Phase;
 import org.cubeengine.butler.DiagnoseListener.Stage;
 import org.cubeengine.butler.DispatcherCommand;
+import org.cubeengine.butler.SuggestionCache;
+import org.cubeengine.butler.SuggestionSink;
 import org.cubeengine.butler.parameter.Parameter;
 import org.cubeengine.butler.parameter.parser.GroupParser;
-import org.cubeengine.butler.parameter.parser.ParameterParser.ParameterType;
-import org.cubeengine.butler.parameter.ParsedParameter;
 import org.cubeengine.butler.parameter.ParsedParameters;
-import org.cubeengine.butler.parameter.property.MethodIndex;
-import org.cubeengine.butler.parameter.property.Properties;
 import org.cubeengine.butler.result.CommandResult;
 
 public class BasicParametricCommand extends DispatcherCommand
@@ -49,51 +52,155 @@ public class BasicParametricCommand extends DispatcherCommand
     @Override
     public boolean selfExecute(CommandInvocation invocation)
     {
-        boolean ran = super.selfExecute(invocation);
-        if (!ran)
-        {
-            this.parse(invocation);
-            ran = this.run(invocation);
-        }
-        return ran;
+        // remaining tokens are arguments and not unknown sub commands
+        this.parse(invocation);
+        return this.run(invocation);
     }
 
     private void parse(CommandInvocation invocation)
     {
         invocation.getListener().on(Stage.PARSE, Phase.PRE, invocation);
-        ParsedParameters parsed = new ParsedParameters();
-        invocation.setProperty(parsed);
-        this.getDescriptor().getParameters().parse(invocation, parsed.value(), null);
+        Parameter parameters = this.getDescriptor().getParameters();
+        if (parameters.getParser() instanceof GroupParser)
+        {
+            ((GroupParser)parameters.getParser()).getPlan().checkArity(invocation);
+        }
+        ParsedParameters parsed = invocation.newParsedParameters();
+        parameters.parse(invocation, parsed.value(), null);
         invocation.getListener().on(Stage.PARSE, Phase.POST, invocation);
     }
 
     @Override
-    public List<String> getSuggestions(CommandInvocation invocation)
+    public boolean getSuggestions(CommandInvocation invocation, SuggestionSink sink)
     {
-        List<String> suggestions = new ArrayList<>();
+        SuggestionCache cache = invocation.providers().getSuggestionCache();
+        if (cache == null)
+        {
+            return this.suggest(invocation, sink);
+        }
+        long generation = invocation.providers().getGeneration();
+        if (cache.get(this, invocation, generation, sink))
+        {
+            return true;
+        }
+        SuggestionSink computed = sink.newChild();
+        int consumed = invocation.consumed();
+        this.suggest(invocation, computed);
+        invocation.reset(consumed);
+        if (computed.isCancelled())
+        {
+            return true;
+        }
+        cache.put(this, invocation, generation, computed);
+        if (computed.isVolatile())
+        {
+            sink.markVolatile();
+        }
+        sink.addAll(computed.toList());
+        return true;
+    }
 
-        List<String> superSuggestions = super.getSuggestions(invocation); // do this first before token is consumed!
+    private boolean suggest(CommandInvocation invocation, SuggestionSink sink)
+    {
+        int consumed = invocation.consumed();
+        this.getDescriptor().getParameters().getSuggestions(invocation, sink);
+        if (!sink.isFull())
+        {
+            invocation.reset(consumed); // sub commands start at the same token as the parameters
+            super.getSuggestions(invocation, sink);
+        }
+        return true;
+    }
 
-        suggestions.addAll(this.getDescriptor().getParameters().getSuggestions(invocation));
+    @Override
+    protected CompletableFuture<List<String>> suggestAsync(CommandInvocation invocation, int limit, long timeout, TimeUnit unit)
+    {
+        final SuggestionSink sink = new SuggestionSink(limit);
+        SuggestionCache cache = invocation.providers().getSuggestionCache();
+        Consumer<SuggestionSink> put = null;
+        if (cache != null)
+        {
+            long generation = invocation.providers().getGeneration();
+            if (cache.get(this, invocation, generation, sink))
+            {
+                return CompletableFuture.completedFuture(sink.toList());
+            }
+            put = cache.putLater(this, invocation, generation);
+        }
+        int consumed = invocation.consumed();
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+        this.getDescriptor().getParameters().getSuggestionsAsync(invocation, sink, futures);
+        invocation.reset(consumed); // sub commands start at the same token as the parameters
+        futures.add(super.suggestAsync(invocation, limit, timeout, unit));
+        CompletableFuture<List<String>> result = AsyncCompletion.collect(futures, sink, timeout, unit);
+        if (put != null)
+        {
+            final Consumer<SuggestionSink> cachePut = put;
+            result.thenRun(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    cachePut.accept(sink); // unless volatile, cancelled or cut off by the deadline
+                }
+            });
+        }
+        return result;
+    }
 
-        if (superSuggestions != null)
+    @Override
+    protected CompletableFuture<Boolean> selfExecuteAsync(final CommandInvocation invocation, Executor executor)
+    {
+        ParametricCommandDescriptor descriptor = this.getDescriptor();
+        Boolean async = descriptor.isAsync();
+        if (async == null)
+        {
+            async = invocation.providers().isAsyncByDefault();
+        }
+        if (!async)
         {
-            suggestions.addAll(superSuggestions);
+            return CompletableFuture.completedFuture(this.selfExecute(invocation));
         }
-        return suggestions;
+        this.parse(invocation);
+        final Object[] args = getArguments(invocation, descriptor);
+        return CompletableFuture.supplyAsync(new Supplier<Boolean>()
+        {
+            @Override
+            public Boolean get()
+            {
+                try
+                {
+                    return invoke(invocation, args);
+                }
+                catch (RuntimeException e)
+                {
+                    handleException(e, invocation);
+                    return true;
+                }
+            }
+        }, executor);
     }
 
-    @SuppressWarnings("unchecked")
     protected boolean run(CommandInvocation invocation)
+    {
+        ParametricCommandDescriptor descriptor = this.getDescriptor();
+        return this.invoke(invocation, getArguments(invocation, descriptor));
+    }
+
+    /**
+     * Invokes the method of this command and processes its result
+     *
+     * @param invocation the invocation
+     * @param args       the prepared arguments
+     *
+     * @return whether the command ran
+     */
+    private boolean invoke(CommandInvocation invocation, Object[] args)
     {
         try
         {
-            ParametricCommandDescriptor descriptor = this.getDescriptor();
-            InvokableMethod invokableMethod = descriptor.getInvokableMethod();
-            Object[] args = getArguments(invocation, descriptor, invokableMethod);
-
             invocation.getListener().on(Stage.INVOKE, Phase.PRE, invocation);
-            Object result = invokableMethod.invoke(args);
+            Object result = this.getDescriptor().getInvokableMethod().invoke(args);
             invocation.getListener().on(Stage.INVOKE, Phase.POST, invocation);
             if (result == null)
             {
@@ -117,61 +224,10 @@ public class BasicParametricCommand extends DispatcherCommand
         return false;
     }
 
-    private static Object[] getArguments(CommandInvocation invocation, ParametricCommandDescriptor descriptor, InvokableMethod invokableMethod)
+    private static Object[] getArguments(CommandInvocation invocation, ParametricCommandDescriptor descriptor)
     {
         invocation.getListener().on(Stage.PREPARE_ARGUMENTS, Phase.PRE, invocation);
-
-        Class<?>[] parameterTypes = invokableMethod.getMethod().getParameterTypes();
-        Object[] args = new Object[parameterTypes.length];
-        for (int i = 0; i <= descriptor.getContextParameter(); i++)
-        {
-            args[i] = invocation.getContext(parameterTypes[i]);
-        }
-
-        Parameter params = descriptor.getParameters();
-        List<Parameter> parameters = new ArrayList<>();
-        if (params.getParser() instanceof GroupParser)
-        {
-            parameters.addAll(((GroupParser)params.getParser()).getFlags());
-            parameters.addAll(((GroupParser)params.getParser()).getNonPositional());
-            parameters.addAll(((GroupParser)params.getParser()).getPositional());
-        }
-        else
-        {
-            parameters.add(params);
-        }
-        Collections.sort(parameters, MethodIndex.COMPARATOR);
-
-        List<ParsedParameter> parsedParams = new ArrayList<>(invocation.valueFor(ParsedParameters.class));
-        for (Parameter parameter : parameters)
-        {
-            Integer index = parameter.getProperty(Properties.METHOD_INDEX);
-            ParsedParameter match = null;
-            for (ParsedParameter parsedParam : parsedParams)
-            {
-                if (parsedParam.getParameter() == parameter)
-                {
-                    match = parsedParam;
-                }
-            }
-            if (match != null)
-            {
-                parsedParams.remove(match);
-                args[index] = match.getParsedValue();
-            }
-            else
-            {
-                if (parameter.getParameterType() == ParameterType.FLAG)
-                {
-                    args[index] = false;
-                }
-                else
-                {
-                    args[index] = null;
-                }
-            }
-        }
-
+        Object[] args = descriptor.getBinding().bind(invocation);
         invocation.getListener().on(Stage.PREPARE_ARGUMENTS, Phase.POST, invocation);
         return args;
     }
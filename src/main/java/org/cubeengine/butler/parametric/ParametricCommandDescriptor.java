@@ -36,6 +36,8 @@ public class ParametricCommandDescriptor extends SimpleCommandDescriptor impleme
     private int contextParameter;
     private List<Filter> filters = new ArrayList<>();
     private Parameter parameters;
+    private Boolean async;
+    private volatile ArgumentBinding binding;
 
     public InvokableMethod getInvokableMethod()
     {
@@ -79,5 +81,37 @@ public class ParametricCommandDescriptor extends SimpleCommandDescriptor impleme
     public void setParameters(Parameter parameters)
     {
         this.parameters = parameters;
+        this.binding = null;
+    }
+
+    /**
+     * Returns the binding of the parsed parameters to the arguments of the method
+     *
+     * @return the binding
+     */
+    public ArgumentBinding getBinding()
+    {
+        ArgumentBinding binding = this.binding;
+        if (binding == null)
+        {
+            binding = new ArgumentBinding(this);
+            this.binding = binding;
+        }
+        return binding;
+    }
+
+    /**
+     * Returns whether the command is invoked asynchronously when executed asynchronously
+     *
+     * @return true, false or null if the command did not declare it
+     */
+    public Boolean isAsync()
+    {
+        return async;
+    }
+
+    public void setAsync(Boolean async)
+    {
+        this.async = async;
     }
 }
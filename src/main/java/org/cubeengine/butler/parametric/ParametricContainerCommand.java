@@ -87,14 +87,16 @@ public class ParametricContainerCommand extends DispatcherCommand implements Con
     public void registerSubCommands()
     {
         CommandBuilder<InvokableMethod> builder = getManager().getProviders().getBuilder(InvokableMethod.class);
+        List<CommandBase> commands = new ArrayList<>();
         for (Method method : ParametricBuilder.getMethods(this.getClass()))
         {
             CommandBase command = builder.buildCommand(this, originFor(method));
             if (command != null)
             {
-                this.addCommand(command);
+                commands.add(command);
             }
         }
+        this.addCommands(commands);
     }
 
     /**
@@ -0,0 +1,41 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.parametric.builder;
+
+import org.cubeengine.butler.builder.DescriptorFiller;
+import org.cubeengine.butler.parametric.Async;
+import org.cubeengine.butler.parametric.InvokableMethod;
+import org.cubeengine.butler.parametric.ParametricCommandDescriptor;
+
+class AsyncFiller implements DescriptorFiller<ParametricCommandDescriptor, InvokableMethod>
+{
+    @Override
+    public void fill(ParametricCommandDescriptor descriptor, InvokableMethod origin)
+    {
+        Async async = origin.getMethod().getAnnotation(Async.class);
+        if (async != null)
+        {
+            descriptor.setAsync(async.value());
+        }
+    }
+}
@@ -47,6 +47,7 @@ public class ParametricBuilder extends AbstractCommandBuilder<InvokableMethod, P
         this.addFiller(new CommandFiller())
             .addFiller(new AliasFiller())
             .addFiller(new RestrictedFiller())
+            .addFiller(new AsyncFiller())
             .addFiller(new UsageGeneratorFiller(usageGenerator))
             .addFiller(this.parameterFiller = new ParametricParametersFiller());
     }
@@ -53,7 +53,9 @@ public class ParametricParametersFiller extends ParametersFiller<ParametricComma
         Method method = origin.getMethod();
         List<Type> types = Arrays.asList(method.getGenericParameterTypes());
         List<Annotation[]> annotationsList = Arrays.asList(method.getParameterAnnotations());
-        return createGroup(descriptor.getContextParameter(), types, annotationsList, null, null, method);
+        Parameter parameter = createGroup(descriptor.getContextParameter(), types, annotationsList, null, null, method);
+        parameter.freeze();
+        return parameter;
     }
 
     private Parameter createGroup(int contextParameter, List<Type> types, List<Annotation[]> annotationsList, List<Field> fields,
@@ -71,6 +73,7 @@ public class ParametricParametersFiller extends ParametersFiller<ParametricComma
             {
                 param.offer(Properties.FIXED_POSITION, posList++);
             }
+            param.freeze(); // the parameter is complete
             parameters.add(param);
         }
 
@@ -30,7 +30,22 @@ import java.util.Map;
  */
 public class PropertyHolder
 {
-    protected final Map<Class<? extends Property>, Property> properties = new HashMap<>();
+    protected final Map<Class<? extends Property>, Property> properties;
+
+    public PropertyHolder()
+    {
+        this(new HashMap<Class<? extends Property>, Property>());
+    }
+
+    /**
+     * Creates a PropertyHolder backed by given map
+     *
+     * @param properties the map holding the properties
+     */
+    protected PropertyHolder(Map<Class<? extends Property>, Property> properties)
+    {
+        this.properties = properties;
+    }
 
     /**
      * Checks if given property is set
@@ -24,19 +24,32 @@ package org.cubeengine.butler.provider;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * A registry of instances by the types they provide for.
+ * <p>Lookups are safe while other threads register or remove instances.
+ * Resolved types, including types without a match, are cached until the next change.</p>
+ *
+ * @param <T> the type of the provided instances
+ */
 public class Provider<T>
 {
-    private Map<Class<?>, T> provided = new HashMap<>();
-    private Map<Class<?>, Object> ownerLookup = new HashMap<>();
-    private Map<Object, List<T>> providedByOwner = new WeakHashMap<>();
+    private static final Object MISSING = new Object();
+
+    private final Map<Class<?>, T> provided = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Object> ownerLookup = new ConcurrentHashMap<>();
+    private final Map<Object, List<T>> providedByOwner = new WeakHashMap<>();
 
-    public void register(Object owner, T toRegister, Class<?>... classes)
+    private volatile int generation = 0;
+    private volatile ConcurrentMap<Class<?>, Object> resolved = new ConcurrentHashMap<>();
+
+    public synchronized void register(Object owner, T toRegister, Class<?>... classes)
     {
         if (owner == null)
         {
@@ -55,6 +68,7 @@ public class Provider<T>
             providedByOwner.put(owner, list);
         }
         list.add(toRegister);
+        this.invalidate();
     }
 
     public T get(Class<?> type)
@@ -67,7 +81,7 @@ public class Provider<T>
         return resolve(type) != null;
     }
 
-    public boolean removeAll(Object owner)
+    public synchronized boolean removeAll(Object owner)
     {
         List<T> removed = providedByOwner.remove(owner);
         if (removed == null)
@@ -76,16 +90,18 @@ public class Provider<T>
         }
         provided.values().removeAll(removed);
         ownerLookup.values().remove(owner);
+        this.invalidate();
         return true;
     }
 
-    public boolean remove(Class<?> type)
+    public synchronized boolean remove(Class<?> type)
     {
         T removed = provided.remove(type);
         ownerLookup.remove(type);
         if (removed != null)
         {
             provided.values().remove(removed);
+            this.invalidate();
             return true;
         }
         return false;
@@ -101,24 +117,54 @@ public class Provider<T>
         return provided.keySet();
     }
 
+    /**
+     * Returns the generation of this provider. It changes whenever an instance is registered or removed.
+     *
+     * @return the generation
+     */
+    public int getGeneration()
+    {
+        return generation;
+    }
+
+    private void invalidate()
+    {
+        this.generation++;
+        this.resolved = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the instance registered for given type or for a subtype of it
+     *
+     * @param type the type
+     *
+     * @return the instance or null if none is registered
+     */
+    @SuppressWarnings("unchecked")
     public T resolve(Class<?> type)
     {
-        T instance = get(type);
+        // a result computed while the provider changes ends up in the discarded cache
+        ConcurrentMap<Class<?>, Object> resolved = this.resolved;
+        Object instance = resolved.get(type);
         if (instance == null)
         {
-            for (Class next : keys())
+            instance = get(type);
+            if (instance == null)
             {
-                if (type.isAssignableFrom(next))
+                for (Class next : keys())
                 {
-                    instance = get(next);
-                    if (instance != null)
+                    if (type.isAssignableFrom(next))
                     {
-                        register(ownerLookup.get(next), instance, type);
-                        break;
+                        instance = get(next);
+                        if (instance != null)
+                        {
+                            break;
+                        }
                     }
                 }
             }
+            resolved.put(type, instance == null ? MISSING : instance);
         }
-        return instance;
+        return instance == MISSING ? null : (T)instance;
     }
 }
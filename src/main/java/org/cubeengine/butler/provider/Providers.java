@@ -25,16 +25,23 @@ package org.cubeengine.butler.provider;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.CompletionCoordinator;
 import org.cubeengine.butler.ContextValue;
+import org.cubeengine.butler.IncrementalTokenizer;
 import org.cubeengine.butler.SourceRestrictedContextValue;
+import org.cubeengine.butler.SuggestionCache;
+import org.cubeengine.butler.SuggestionPrefetcher;
 import org.cubeengine.butler.builder.CommandBuilder;
 import org.cubeengine.butler.parameter.argument.Completer;
 import org.cubeengine.butler.exception.CompositeExceptionHandler;
+import org.cubeengine.butler.exception.InputLimitException;
 import org.cubeengine.butler.parameter.Parameter;
 import org.cubeengine.butler.parameter.argument.ArgumentParser;
 import org.cubeengine.butler.parameter.argument.DefaultValue;
+import org.cubeengine.butler.parameter.argument.ParseResult;
 import org.cubeengine.butler.parameter.argument.ParserException;
 import org.cubeengine.butler.parameter.enumeration.SimpleEnumButler;
 import org.cubeengine.butler.parameter.argument.SimpleListParser;
@@ -56,6 +63,17 @@ public class Providers
 
     private Map<Class, CommandBuilder> builders = new HashMap<>();
 
+    private final Map<Object, IncrementalTokenizer> tokenizers = new WeakHashMap<>();
+
+    private int maxLineLength = Integer.MAX_VALUE;
+    private int maxTokens = Integer.MAX_VALUE;
+    private boolean asyncByDefault = false;
+
+    private volatile int commandGeneration = 0;
+    private SuggestionCache suggestionCache;
+    private SuggestionPrefetcher suggestionPrefetcher;
+    private final CompletionCoordinator completionCoordinator = new CompletionCoordinator();
+
     public Providers()
     {
         register(this, new StringParser(), String.class);
@@ -130,6 +148,33 @@ public class Providers
     }
 
     public Object read(Class<?> readerClass, Class<?> type, CommandInvocation invocation)
+    {
+        return this.tryRead(readerClass, type, invocation).getValue();
+    }
+
+    /**
+     * Reads a value for given parameter returning failures instead of throwing them
+     *
+     * @param param      the parameter
+     * @param invocation the invocation
+     *
+     * @return the result
+     */
+    public ParseResult<?> tryRead(Parameter param, CommandInvocation invocation)
+    {
+        return this.tryRead(param.getReaderType(), param.getType(), invocation);
+    }
+
+    /**
+     * Reads a value returning failures instead of throwing them
+     *
+     * @param readerClass the class the ArgumentParser is registered for
+     * @param type        the type to read
+     * @param invocation  the invocation
+     *
+     * @return the result
+     */
+    public ParseResult<?> tryRead(Class<?> readerClass, Class<?> type, CommandInvocation invocation)
     {
         ArgumentParser<?> reader = parsers().resolve(readerClass);
         if (reader == null)
@@ -143,7 +188,7 @@ public class Providers
                 throw new IllegalArgumentException("No reader found for " + readerClass.getName() + "!");
             }
         }
-        return reader.parse(type, invocation);
+        return reader.tryParse(type, invocation);
     }
 
     public Object getDefault(Class<?> defaultProvider, CommandInvocation invocation)
@@ -191,4 +236,158 @@ public class Providers
     {
         return builders.get(clazz);
     }
+
+    /**
+     * Returns the IncrementalTokenizer for given CommandSource
+     *
+     * @param source the CommandSource
+     *
+     * @return the IncrementalTokenizer
+     */
+    public IncrementalTokenizer getTokenizer(Object source)
+    {
+        synchronized (tokenizers)
+        {
+            IncrementalTokenizer tokenizer = tokenizers.get(source);
+            if (tokenizer == null)
+            {
+                tokenizer = new IncrementalTokenizer();
+                tokenizers.put(source, tokenizer);
+            }
+            return tokenizer;
+        }
+    }
+
+    /**
+     * Returns the maximum length of a commandline
+     *
+     * @return the maximum length
+     */
+    public int getMaxLineLength()
+    {
+        return maxLineLength;
+    }
+
+    /**
+     * Sets the maximum length of a commandline.
+     * Longer commandlines are rejected with an {@link InputLimitException} before they are tokenized.
+     *
+     * @param maxLineLength the maximum length
+     */
+    public void setMaxLineLength(int maxLineLength)
+    {
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Returns the maximum amount of tokens in a commandline
+     *
+     * @return the maximum amount of tokens
+     */
+    public int getMaxTokens()
+    {
+        return maxTokens;
+    }
+
+    /**
+     * Sets the maximum amount of tokens in a commandline.
+     * Tokenizing stops with an {@link InputLimitException} as soon as the limit is exceeded.
+     *
+     * @param maxTokens the maximum amount of tokens
+     */
+    public void setMaxTokens(int maxTokens)
+    {
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Returns whether commands that do not declare it themselves run asynchronously when executed asynchronously
+     *
+     * @return true if commands run asynchronously by default
+     */
+    public boolean isAsyncByDefault()
+    {
+        return asyncByDefault;
+    }
+
+    /**
+     * Sets whether commands that do not declare it themselves run asynchronously when executed asynchronously
+     *
+     * @param asyncByDefault true if commands run asynchronously by default
+     */
+    public void setAsyncByDefault(boolean asyncByDefault)
+    {
+        this.asyncByDefault = asyncByDefault;
+    }
+
+    /**
+     * Returns the generation of the registered commands and providers.
+     * It changes whenever a command, a parser, a completer, a default value or a context value is added or removed.
+     *
+     * @return the generation
+     */
+    public long getGeneration()
+    {
+        return (long)commandGeneration + parsers.getGeneration() + completers.getGeneration()
+            + defaults.getGeneration() + contexts.getGeneration();
+    }
+
+    /**
+     * Is called by dispatchers when their commands changed
+     */
+    public void commandsChanged()
+    {
+        this.commandGeneration++;
+    }
+
+    /**
+     * Returns the cache for suggestions of commands
+     *
+     * @return the cache or null if suggestions are not cached
+     */
+    public SuggestionCache getSuggestionCache()
+    {
+        return suggestionCache;
+    }
+
+    /**
+     * Sets the cache for suggestions of commands
+     *
+     * @param suggestionCache the cache or null to not cache suggestions
+     */
+    public void setSuggestionCache(SuggestionCache suggestionCache)
+    {
+        this.suggestionCache = suggestionCache;
+    }
+
+    /**
+     * Returns the prefetcher for suggestions of the first argument of a command
+     *
+     * @return the prefetcher or null if suggestions are not prefetched
+     */
+    public SuggestionPrefetcher getSuggestionPrefetcher()
+    {
+        return suggestionPrefetcher;
+    }
+
+    /**
+     * Sets the prefetcher for suggestions of the first argument of a command.
+     * Prefetched suggestions are kept in the {@link #getSuggestionCache() SuggestionCache}.
+     *
+     * @param suggestionPrefetcher the prefetcher or null to not prefetch suggestions
+     */
+    public void setSuggestionPrefetcher(SuggestionPrefetcher suggestionPrefetcher)
+    {
+        this.suggestionPrefetcher = suggestionPrefetcher;
+    }
+
+    /**
+     * Returns the coordinator cancelling superseded completions of a CommandSource
+     *
+     * @return the coordinator
+     */
+    public CompletionCoordinator getCompletionCoordinator()
+    {
+        return completionCoordinator;
+    }
 }
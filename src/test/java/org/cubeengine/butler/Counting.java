@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.cubeengine.butler.parameter.Parameter;
+import org.cubeengine.butler.parameter.ParsedParameter;
+import org.cubeengine.butler.parameter.argument.ArgumentParser;
+import org.cubeengine.butler.parameter.argument.Completer;
+import org.cubeengine.butler.parameter.argument.ParseResult;
+import org.cubeengine.butler.parameter.argument.VolatileCompleter;
+import org.cubeengine.butler.parameter.parser.IndexedParser;
+
+/**
+ * Parsers and Completers counting how often they are called
+ */
+public final class Counting
+{
+    private Counting()
+    {
+    }
+
+    /**
+     * Consumes a fixed amount of tokens and returns the first one
+     */
+    public static class CountingParser implements ArgumentParser<Object>
+    {
+        private final AtomicInteger reads = new AtomicInteger();
+        private final int tokens;
+
+        public CountingParser()
+        {
+            this(1);
+        }
+
+        public CountingParser(int tokens)
+        {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public Object parse(Class type, CommandInvocation invocation)
+        {
+            reads.incrementAndGet();
+            return invocation.consume(tokens);
+        }
+
+        public int reads()
+        {
+            return reads.get();
+        }
+    }
+
+    /**
+     * Suggests a fixed list
+     */
+    public static class CountingCompleter implements Completer
+    {
+        private final AtomicInteger completions = new AtomicInteger();
+        private final List<String> suggestions;
+
+        public CountingCompleter(List<String> suggestions)
+        {
+            this.suggestions = suggestions;
+        }
+
+        @Override
+        public List<String> suggest(Class type, CommandInvocation invocation)
+        {
+            completions.incrementAndGet();
+            return suggestions;
+        }
+
+        public int completions()
+        {
+            return completions.get();
+        }
+    }
+
+    public static class CountingVolatileCompleter extends CountingCompleter implements VolatileCompleter
+    {
+        public CountingVolatileCompleter(List<String> suggestions)
+        {
+            super(suggestions);
+        }
+    }
+
+    /**
+     * Counts how often the tokens of its parameter are parsed, including structural parses for completions
+     */
+    public static class CountingIndexedParser extends IndexedParser
+    {
+        private final AtomicInteger parses = new AtomicInteger();
+
+        public CountingIndexedParser(Parameter parameter)
+        {
+            super(parameter);
+        }
+
+        @Override
+        public ParseResult<Void> tryParse(CommandInvocation invocation, List<ParsedParameter> params, List<Parameter> suggestions)
+        {
+            parses.incrementAndGet();
+            return super.tryParse(invocation, params, suggestions);
+        }
+
+        public int parses()
+        {
+            return parses.get();
+        }
+    }
+}
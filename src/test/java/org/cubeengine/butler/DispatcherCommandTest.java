@@ -0,0 +1,161 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.cubeengine.butler.alias.AliasConfiguration;
+import org.cubeengine.butler.parametric.SimpleCommandManager;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class DispatcherCommandTest
+{
+    private static final int CONTAINERS = 200;
+    private static final int SUB_COMMANDS = 10;
+
+    private static SimpleCommandDescriptor descriptor(String name, String... aliases)
+    {
+        SimpleCommandDescriptor descriptor = new SimpleCommandDescriptor();
+        descriptor.setName(name);
+        List<AliasConfiguration> list = new ArrayList<>();
+        for (String alias : aliases)
+        {
+            list.add(new AliasConfiguration(alias));
+        }
+        descriptor.addAliases(list);
+        return descriptor;
+    }
+
+    /**
+     * A container registering its sub commands one by one
+     */
+    private static class TestContainer extends DispatcherCommand implements ContainerCommand
+    {
+        private TestContainer(String name)
+        {
+            super(descriptor(name, name + "-alias"));
+        }
+
+        @Override
+        public void registerSubCommands()
+        {
+            for (int i = 0; i < SUB_COMMANDS; i++)
+            {
+                this.addCommand(new DispatcherCommand(descriptor("sub" + i)));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentRegistration() throws Exception
+    {
+        final SimpleCommandManager scm = new SimpleCommandManager(descriptor("Base Dispatcher"));
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++)
+        {
+            Thread reader = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        while (!done.get())
+                        {
+                            for (int i = 0; i < CONTAINERS; i++)
+                            {
+                                // a container is only visible with all its sub commands and aliases
+                                if (scm.getCommand("c" + i) != null)
+                                {
+                                    assertNotNull(scm.getCommand("C" + i + "-ALIAS"));
+                                    assertNotNull(scm.getCommand("c" + i, "sub" + (SUB_COMMANDS - 1)));
+                                    // each reader is its own CommandSource so completions do not supersede each other
+                                    CommandInvocation invocation = new CommandInvocation(Thread.currentThread(), "c" + i + " sub", scm.getProviders());
+                                    assertEquals(SUB_COMMANDS, scm.getSuggestions(invocation).size());
+                                }
+                            }
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (int i = 0; i < CONTAINERS; i++)
+        {
+            scm.addCommand(new TestContainer("c" + i));
+        }
+        done.set(true);
+        for (Thread reader : readers)
+        {
+            reader.join();
+        }
+        if (failure.get() != null)
+        {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(CONTAINERS * 2, scm.getCommands().size());
+
+        List<CommandBase> batch = new ArrayList<>();
+        for (int i = 0; i < SUB_COMMANDS; i++)
+        {
+            batch.add(new DispatcherCommand(descriptor("batch" + i)));
+        }
+        scm.addCommands(batch);
+        assertNotNull(scm.getCommand("BATCH0"));
+        scm.removeCommand(scm.getCommand("c0"));
+        assertNull(scm.getCommand("c0"));
+    }
+
+    @Test
+    public void testSimilarAfterRemoval() throws Exception
+    {
+        SimpleCommandManager scm = new SimpleCommandManager(descriptor("Base Dispatcher"));
+        for (String name : asList("tell", "tall", "toll"))
+        {
+            scm.addCommand(new DispatcherCommand(descriptor(name)));
+        }
+        CommandInvocation invocation = new CommandInvocation(null, "", scm.getProviders());
+        assertEquals(asList("tell", "tall", "toll"), scm.getSimilarAliases("tell", invocation, 10));
+
+        scm.removeCommand(scm.getCommand("tall"));
+        assertEquals(asList("tell", "toll"), scm.getSimilarAliases("tell", invocation, 10));
+
+        scm.addCommand(new DispatcherCommand(descriptor("tall")));
+        assertEquals(asList("tell", "tall", "toll"), scm.getSimilarAliases("tell", invocation, 10));
+    }
+}
@@ -23,6 +23,8 @@
 package org.cubeengine.butler;
 
 import java.util.List;
+import org.cubeengine.butler.parameter.argument.ParseResult;
+import org.cubeengine.butler.parameter.argument.ParserException;
 import org.cubeengine.butler.parameter.enumeration.EnumName;
 import org.cubeengine.butler.parameter.enumeration.SimpleEnumButler;
 import org.cubeengine.butler.provider.Providers;
@@ -30,6 +32,8 @@ import org.junit.Test;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 @EnumName("Tests")
 enum TestEnum {
@@ -55,4 +59,27 @@ public class EnumerationTest
         assertEquals(expected, actual);
 
     }
+
+    @Test
+    public void testEnumCompleterLimit()
+    {
+        SuggestionSink sink = new SuggestionSink(1);
+        new SimpleEnumButler().suggest(TestEnum.class, cmd("a"), sink);
+        assertEquals(asList("AA"), sink.toList());
+        assertTrue(sink.isFull());
+    }
+
+    @Test
+    public void testEnumTryParse()
+    {
+        CommandInvocation invocation = cmd("cc_dd ee");
+        ParseResult<Object> result = new SimpleEnumButler().tryParse(TestEnum.class, invocation);
+        assertEquals(TestEnum.CC_DD, result.getValue());
+        assertEquals(1, invocation.consumed());
+
+        result = new SimpleEnumButler().tryParse(TestEnum.class, invocation);
+        assertFalse(result.isSuccess());
+        assertEquals(1, invocation.consumed());
+        assertTrue(result.getFailure() instanceof ParserException);
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler;
+
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.cubeengine.butler.ScriptReport.Failure;
+import org.cubeengine.butler.exception.InputLimitException;
+import org.cubeengine.butler.exception.PriorityExceptionHandler;
+import org.cubeengine.butler.exception.UnknownCommandException;
+import org.cubeengine.butler.parametric.SimpleCommandManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScriptExecutorTest
+{
+    private static final int LINES = 3000;
+
+    private SimpleCommandManager scm;
+    private final List<String> executed = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception
+    {
+        SimpleCommandDescriptor desc = new SimpleCommandDescriptor();
+        desc.setName("Base Dispatcher");
+        scm = new SimpleCommandManager(desc);
+
+        SimpleCommandDescriptor count = new SimpleCommandDescriptor();
+        count.setName("count");
+        scm.addCommand(new DispatcherCommand(count)
+        {
+            @Override
+            protected boolean selfExecute(CommandInvocation invocation)
+            {
+                executed.add(invocation.getCommandLine());
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Creates a script larger than the read buffer with mixed line endings, comments, empty lines and one unknown command
+     */
+    private static String script()
+    {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < LINES; i++)
+        {
+            script.append("count ").append(i).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        script.append("# a comment\n\r\n");
+        script.append("nope 1\r\n");
+        script.append("count last");
+        return script.toString();
+    }
+
+    private void assertReport(ScriptReport report)
+    {
+        assertEquals(LINES + 4, report.getLines());
+        assertEquals(LINES + 2, report.getExecuted());
+        assertEquals(LINES + 1, executed.size());
+        assertEquals("count 0", executed.get(0));
+        assertEquals("count " + (LINES - 1), executed.get(LINES - 1));
+        assertEquals("count last", executed.get(LINES));
+
+        assertEquals(1, report.getFailures().size());
+        Failure failure = report.getFailures().get(0);
+        assertEquals(LINES + 3, failure.getLine());
+        assertEquals("nope 1", failure.getCommandLine());
+        assertTrue(failure.getCause() instanceof UnknownCommandException);
+    }
+
+    @Test
+    public void testReader() throws Exception
+    {
+        assertReport(new ScriptExecutor(scm).execute(null, new StringReader(script())));
+    }
+
+    @Test
+    public void testCharBuffer() throws Exception
+    {
+        CharBuffer script = CharBuffer.wrap(script());
+        assertReport(new ScriptExecutor(scm).execute(null, script));
+        assertEquals(0, script.remaining());
+    }
+
+    @Test
+    public void testFile() throws Exception
+    {
+        Path file = Files.createTempFile("script", ".txt");
+        try
+        {
+            Files.write(file, script().getBytes(StandardCharsets.UTF_8));
+            assertReport(new ScriptExecutor(scm).execute(null, file, StandardCharsets.UTF_8));
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testLongLine() throws Exception
+    {
+        StringBuilder line = new StringBuilder("count ");
+        for (int i = 0; i < 20000; i++)
+        {
+            line.append('x');
+        }
+        ScriptReport report = new ScriptExecutor(scm).execute(null, new StringReader("count a\r\n" + line + "\r\ncount b"));
+        assertEquals(3, report.getLines());
+        assertEquals(0, report.getFailures().size());
+        assertEquals(line.toString(), executed.get(1));
+        assertEquals("count b", executed.get(2));
+    }
+
+    @Test
+    public void testLimits() throws Exception
+    {
+        scm.getProviders().setMaxLineLength(10);
+        scm.getProviders().setMaxTokens(2);
+        ScriptReport report = new ScriptExecutor(scm).execute(null, new StringReader("count a\ncount a b\ncount abcdefgh"));
+        assertEquals(3, report.getExecuted());
+        assertEquals(2, report.getFailures().size());
+        assertEquals(2, report.getFailures().get(0).getLine());
+        assertTrue(report.getFailures().get(0).getCause() instanceof InputLimitException);
+        assertEquals(3, report.getFailures().get(1).getLine());
+        assertTrue(report.getFailures().get(1).getCause() instanceof InputLimitException);
+        assertEquals(1, executed.size());
+    }
+
+    @Test
+    public void testHandledException() throws Exception
+    {
+        SimpleCommandDescriptor fail = new SimpleCommandDescriptor();
+        fail.setName("fail");
+        scm.addCommand(new DispatcherCommand(fail)
+        {
+            @Override
+            protected boolean selfExecute(CommandInvocation invocation)
+            {
+                throw new IllegalStateException(invocation.getCommandLine());
+            }
+        });
+        scm.getProviders().getExceptionHandler().addHandler(new PriorityExceptionHandler()
+        {
+            @Override
+            public int priority()
+            {
+                return 0;
+            }
+
+            @Override
+            public boolean handleException(Throwable e, CommandBase command, CommandInvocation invocation)
+            {
+                return e instanceof IllegalStateException;
+            }
+        });
+        ScriptReport report = new ScriptExecutor(scm).execute(null, new StringReader("count a\nfail b\ncount c"));
+        assertEquals(3, report.getExecuted());
+        assertEquals(1, report.getFailures().size());
+        assertEquals(2, report.getFailures().get(0).getLine());
+        assertTrue(report.getFailures().get(0).getCause() instanceof IllegalStateException);
+        assertEquals(2, executed.size());
+    }
+}
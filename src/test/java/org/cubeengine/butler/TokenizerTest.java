@@ -22,13 +22,19 @@
  */
 package org.cubeengine.butler;
 
+import org.cubeengine.butler.Tokenizer.Spans;
 import org.cubeengine.butler.Tokenizer.Token;
 import org.cubeengine.butler.Tokenizer.TokenType;
+import org.cubeengine.butler.exception.InputLimitException;
+import org.cubeengine.butler.provider.Providers;
 import org.junit.Test;
 
 import static java.util.Arrays.asList;
 import static org.cubeengine.butler.Tokenizer.tokenize;
+import static org.cubeengine.butler.Tokenizer.valueOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class TokenizerTest
 {
@@ -50,4 +56,90 @@ public class TokenizerTest
         assertEquals(asList(quoted("a b "), plain("c")), tokenize("\"a b \"c"));
         assertEquals(asList(plain("a"), plain("b"), plain("c"), plain("")), tokenize("a b c "));
     }
+
+    @Test
+    public void testSpans()
+    {
+        String input = "ab \"c d\" e ";
+        Spans spans = tokenize(input, new Spans(1));
+        assertEquals(4, spans.size());
+        assertEquals(0, spans.start(0));
+        assertEquals(2, spans.end(0));
+        assertEquals(3, spans.start(1));
+        assertEquals(8, spans.end(1));
+        assertEquals(TokenType.QUOTED, spans.type(1));
+        assertEquals("c d", valueOf(input, spans, 1));
+        assertEquals("e", valueOf(input, spans, 2));
+        assertEquals(spans.start(3), spans.end(3));
+
+        CommandInvocation invocation = new CommandInvocation(null, "-Flag name", null);
+        assertTrue(invocation.tokenEqualsIgnoreCase(1, "NAME"));
+        assertTrue(invocation.tokenStartsWithIgnoreCase(0, 1, "fl"));
+        assertFalse(invocation.tokenStartsWithIgnoreCase(0, 3, "agX"));
+        assertEquals(asList("-Flag", "name"), invocation.tokens());
+    }
+
+    @Test
+    public void testIncremental()
+    {
+        String[] lines = {"give 'some player' \"dia mond\" 64 ", "a 'b \"c 'd\\' e\" f", "'a \\\\'b \"c\\\" d\"", "a  'b  c"};
+        for (String line : lines)
+        {
+            IncrementalTokenizer incremental = new IncrementalTokenizer();
+            for (int i = 0; i <= line.length(); i++)
+            {
+                String prefix = line.substring(0, i);
+                Spans expected = tokenize(prefix, new Spans());
+                Spans actual = incremental.tokenize(prefix, new Spans());
+                assertEquals(prefix, expected.size(), actual.size());
+                for (int t = 0; t < expected.size(); t++)
+                {
+                    assertEquals(prefix, expected.start(t), actual.start(t));
+                    assertEquals(prefix, expected.end(t), actual.end(t));
+                    assertEquals(prefix, expected.type(t), actual.type(t));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUnterminated()
+    {
+        assertEquals(asList(plain("a"), plain("'b"), plain("\"c"), plain("d")), tokenize("a 'b \"c d"));
+        assertEquals(asList(plain("'a"), quoted("b\\'c"), plain("x")), tokenize("'a \"b\\'c\" x"));
+    }
+
+    @Test(expected = InputLimitException.class)
+    public void testTokenLimit()
+    {
+        Providers providers = new Providers();
+        providers.setMaxTokens(2);
+        new CommandInvocation(null, "a b c", providers);
+    }
+
+    @Test
+    public void testPooledInvocation()
+    {
+        InvocationPool pool = new InvocationPool(new Providers(), 1);
+        CommandInvocation first = pool.acquire("a", "one two");
+        first.consume(1);
+        pool.release(first);
+
+        CommandInvocation second = pool.acquire("b", "three four 'five six'");
+        assertTrue(first == second);
+        assertEquals("b", second.getCommandSource());
+        assertEquals(asList("three", "four", "five six"), second.tokens());
+        assertEquals("three", second.currentToken());
+    }
+
+    @Test
+    public void testSplit()
+    {
+        CommandInvocation invocation = new CommandInvocation(null, "list a,b,,c 'd,e f' g", new Providers());
+        invocation.skip(1);
+        assertEquals(asList("a", "b", "", "c"), invocation.split(",").tokens());
+        assertEquals(asList("d", "e f"), invocation.split(",").tokens());
+        assertEquals(asList("g"), invocation.split(",").tokens());
+        assertTrue(invocation.isConsumed());
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.Counting.CountingIndexedParser;
+import org.cubeengine.butler.parameter.parser.GroupParser;
+import org.cubeengine.butler.parameter.property.Properties;
+import org.cubeengine.butler.provider.Providers;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class GroupParserTest
+{
+    private Providers providers;
+    private List<Parameter> parameters;
+    private List<CountingIndexedParser> parsers;
+    private GroupParser group;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        providers = new Providers();
+        parameters = new ArrayList<>();
+        parsers = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+        {
+            Parameter parameter = new Parameter();
+            parameter.offer(Properties.TYPE, String.class);
+            parameter.offer(Properties.GREED, 1);
+            CountingIndexedParser parser = new CountingIndexedParser(parameter);
+            parameter.offer(Properties.PARSER, parser);
+            parameters.add(parameter);
+            parsers.add(parser);
+        }
+        Parameter parameter = new Parameter();
+        group = new GroupParser(parameter, Object.class, parameters);
+        parameter.offer(Properties.PARSER, group);
+    }
+
+    private List<Parameter> complete(Object source, String line)
+    {
+        List<Parameter> suggs = new ArrayList<>();
+        group.tryParse(new CommandInvocation(source, line, providers), new ArrayList<ParsedParameter>(), suggs);
+        return suggs;
+    }
+
+    private int parses()
+    {
+        int parses = 0;
+        for (CountingIndexedParser parser : parsers)
+        {
+            parses += parser.parses();
+        }
+        return parses;
+    }
+
+    @Test
+    public void testResumedCompletion() throws Exception
+    {
+        Object source = new Object();
+        assertEquals(asList(parameters.get(2)), complete(source, "a b c"));
+        assertEquals(2, parses());
+
+        // typing on in the last token skips the tokens before it
+        assertEquals(asList(parameters.get(2)), complete(source, "a b cd"));
+        assertEquals(2, parses());
+
+        // a new token only parses the previous last token
+        assertEquals(asList(parameters.get(3)), complete(source, "a b cd e"));
+        assertEquals(3, parses());
+
+        // a changed prefix or another CommandSource parses all tokens
+        assertEquals(asList(parameters.get(3)), complete(source, "x b cd e"));
+        assertEquals(6, parses());
+        assertEquals(asList(parameters.get(3)), complete(new Object(), "x b cd e"));
+        assertEquals(9, parses());
+
+        // a changed generation invalidates the snapshot
+        providers.commandsChanged();
+        assertEquals(asList(parameters.get(3)), complete(source, "x b cd ef"));
+        assertEquals(12, parses());
+    }
+}
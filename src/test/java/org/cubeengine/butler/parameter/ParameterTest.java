@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.parameter;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.cubeengine.butler.parameter.property.Properties;
+import org.cubeengine.butler.parameter.property.PropertyKey;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ParameterTest
+{
+    @Test
+    public void testPropertyKeys() throws Exception
+    {
+        Parameter parameter = new Parameter();
+        parameter.offer("GREED", 2);
+        parameter.offer(Properties.TYPE, String.class);
+        assertEquals(2, parameter.getGreed());
+        assertEquals(Integer.valueOf(2), parameter.getProperty(Properties.GREED));
+        assertSame(String.class, parameter.getProperty("TYPE"));
+        parameter.freeze();
+        try
+        {
+            parameter.offer(Properties.GREED, 1);
+            fail();
+        }
+        catch (IllegalStateException ignored)
+        {
+        }
+        assertEquals(2, parameter.getGreed());
+    }
+
+    @Test
+    public void testLegacyKeyFirst() throws Exception
+    {
+        // a fresh class loader so Properties is not initialized yet
+        URL classes = PropertyKey.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes}, null))
+        {
+            Class<?> keyClass = loader.loadClass(PropertyKey.class.getName());
+            Object key = keyClass.getMethod("of", Object.class).invoke(null, "TYPE");
+            assertNotNull(key);
+            assertEquals("TYPE", key.toString());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.Counting.CountingParser;
+import org.cubeengine.butler.parameter.parser.IndexedParser;
+import org.cubeengine.butler.parameter.property.Properties;
+import org.cubeengine.butler.provider.Providers;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SimpleParserTest
+{
+    @Test
+    public void testUnconvertedParse() throws Exception
+    {
+        CountingParser parser = new CountingParser();
+        Parameter parameter = new Parameter();
+        parameter.offer(Properties.TYPE, String.class);
+        parameter.offer(Properties.GREED, 1);
+        parameter.offer(Properties.ARGUMENT_PARSER, parser);
+        parameter.offer(Properties.PARSER, new IndexedParser(parameter));
+        CommandInvocation invocation = new CommandInvocation(null, "a b", new Providers());
+        List<ParsedParameter> params = new ArrayList<>();
+        parameter.tryParse(invocation, params, new ArrayList<Parameter>());
+        assertEquals(1, invocation.consumed());
+        assertEquals(0, parser.reads());
+
+        ParsedParameter parsed = params.get(0);
+        assertFalse(parsed.isConverted());
+        for (int i = 0; i < 2; i++)
+        {
+            assertEquals("a", parsed.getParsedValue(invocation));
+            assertEquals(1, invocation.consumed());
+        }
+        assertTrue(parsed.isConverted());
+        assertEquals(1, parser.reads());
+    }
+}
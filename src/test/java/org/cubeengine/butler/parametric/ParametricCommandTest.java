@@ -22,11 +22,33 @@
  */
 package org.cubeengine.butler.parametric;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.cubeengine.butler.AsyncCompletion;
 import org.cubeengine.butler.CommandBase;
 import org.cubeengine.butler.CommandInvocation;
+import org.cubeengine.butler.Counting.CountingCompleter;
+import org.cubeengine.butler.Counting.CountingParser;
+import org.cubeengine.butler.Counting.CountingVolatileCompleter;
+import org.cubeengine.butler.Dispatcher;
+import org.cubeengine.butler.ExecutionResult;
 import org.cubeengine.butler.SimpleCommandDescriptor;
+import org.cubeengine.butler.SuggestionSink;
+import org.cubeengine.butler.SuggestionCache;
+import org.cubeengine.butler.SuggestionPrefetcher;
+import org.cubeengine.butler.exception.PriorityExceptionHandler;
+import org.cubeengine.butler.exception.UnknownCommandException;
 import org.cubeengine.butler.parameter.ParameterUsageGenerator;
+import org.cubeengine.butler.parameter.TooFewArgumentsException;
 import org.cubeengine.butler.parameter.argument.Completer;
 import org.cubeengine.butler.parametric.builder.ParametricBuilder;
 import org.cubeengine.butler.provider.Provider;
@@ -34,7 +56,12 @@ import org.hamcrest.core.Is;
 import org.junit.Before;
 import org.junit.Test;
 
+import static java.util.Arrays.asList;
 import static org.cubeengine.butler.parametric.TestParametricSuggestionCommand.TEST_LIST;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -80,6 +107,89 @@ public class ParametricCommandTest
         }
     }
 
+    @Test
+    public void testAsyncCmd() throws Exception
+    {
+        scm.getProviders().setAsyncByDefault(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            for (CommandBase command : container.getCommands())
+            {
+                CommandInvocation invocation = new CommandInvocation(null, command.getDescriptor().getDescription(), scm.getProviders());
+                assertTrue(command.executeAsync(invocation, executor).get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatch() throws Exception
+    {
+        for (CommandBase command : container.getCommands())
+        {
+            List<CommandInvocation> invocations = new ArrayList<>();
+            for (int i = 0; i < 3; i++)
+            {
+                invocations.add(new CommandInvocation(null, command.getDescriptor().getDescription(), scm.getProviders()));
+            }
+            List<ExecutionResult> results = ((Dispatcher)command).executeAll(invocations);
+            assertEquals(invocations.size(), results.size());
+            for (int i = 0; i < results.size(); i++)
+            {
+                assertSame(invocations.get(i), results.get(i).getInvocation());
+                assertTrue(results.get(i).toString(), results.get(i).hasRun());
+            }
+        }
+    }
+
+    @Test
+    public void testBatchFailures() throws Exception
+    {
+        List<CommandInvocation> invocations = new ArrayList<>();
+        for (String line : asList("parametric2 Value1 Value2", "parametrik2", "parametric2 Value1 Value2"))
+        {
+            invocations.add(new CommandInvocation(null, line, scm.getProviders()));
+        }
+        List<ExecutionResult> results = container.executeAll(invocations);
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).hasRun());
+        assertFalse(results.get(1).hasRun());
+        assertTrue(results.get(1).getHandledException() instanceof UnknownCommandException);
+        assertTrue(results.get(2).hasRun());
+        assertNull(results.get(2).getHandledException());
+    }
+
+    @Test
+    public void testUnknownCommand() throws Exception
+    {
+        final List<String> suggestions = new ArrayList<>();
+        scm.getProviders().getExceptionHandler().addHandler(new PriorityExceptionHandler()
+        {
+            @Override
+            public int priority()
+            {
+                return 0;
+            }
+
+            @Override
+            public boolean handleException(Throwable e, CommandBase command, CommandInvocation invocation)
+            {
+                if (e instanceof UnknownCommandException)
+                {
+                    suggestions.addAll(((UnknownCommandException)e).getSuggestions());
+                    return true;
+                }
+                return false;
+            }
+        });
+        assertFalse(container.execute(new CommandInvocation(null, "parametrik2", scm.getProviders())));
+        assertEquals(asList("parametric2", "parametric", "parametric1"), suggestions);
+    }
+
     @Test
     public void testSuggestions() throws Exception
     {
@@ -98,5 +208,339 @@ public class ParametricCommandTest
             }
         }
     }
-}
 
+    @Test
+    public void testCachedSuggestions() throws Exception
+    {
+        SuggestionCache cache = new SuggestionCache(64, 1, TimeUnit.MINUTES);
+        scm.getProviders().setSuggestionCache(cache);
+        for (int i = 0; i < 2; i++)
+        {
+            for (CommandBase command : suggContainer.getCommands())
+            {
+                String description = command.getDescriptor().getDescription();
+                List<String> suggs = command.getSuggestions(new CommandInvocation(null, description, scm.getProviders()));
+                assertThat(suggs, Is.is(TEST_LIST));
+            }
+            assertEquals(suggContainer.getCommands().size(), cache.size());
+        }
+    }
+
+    @Test
+    public void testTypedSuggestions() throws Exception
+    {
+        Object source = new Object();
+        for (CommandBase command : suggContainer.getCommands())
+        {
+            String line = command.getDescriptor().getDescription() + "val1 \"x y";
+            for (int i = 0; i <= line.length(); i++)
+            {
+                String prefix = line.substring(0, i);
+                List<String> fresh = command.getSuggestions(new CommandInvocation(new Object(), prefix, scm.getProviders()));
+                List<String> typed = ((Dispatcher)command).getSuggestions(source, prefix);
+                assertEquals(prefix, fresh, typed);
+            }
+            // deleting characters does not extend the previous commandline
+            for (int i = line.length(); i >= 0; i--)
+            {
+                String prefix = line.substring(0, i);
+                List<String> fresh = command.getSuggestions(new CommandInvocation(new Object(), prefix, scm.getProviders()));
+                List<String> typed = ((Dispatcher)command).getSuggestions(source, prefix);
+                assertEquals(prefix, fresh, typed);
+            }
+        }
+    }
+
+    @Test
+    public void testNamesIgnoreCase() throws Exception
+    {
+        CommandBase named = suggContainer.getCommand("parametricNamedVal1");
+        for (String line : asList("name ", "NaMe ", "\"NAME\" "))
+        {
+            assertThat(line, named.getSuggestions(new CommandInvocation(null, line, scm.getProviders())), Is.is(TEST_LIST));
+        }
+    }
+
+    @Test
+    public void testAsyncSuggestions() throws Exception
+    {
+        for (CommandBase command : suggContainer.getCommands())
+        {
+            String description = command.getDescriptor().getDescription();
+            CommandInvocation invocation = new CommandInvocation(null, description, scm.getProviders());
+            List<String> suggs = command.getSuggestionsAsync(invocation, SuggestionSink.UNLIMITED, 1, TimeUnit.SECONDS).get();
+            assertThat(suggs, Is.is(TEST_LIST));
+        }
+
+        final CompletableFuture<List<String>> slow = new CompletableFuture<>();
+        scm.getProviders().register(this, new Completer()
+        {
+            @Override
+            public List<String> suggest(Class type, CommandInvocation invocation)
+            {
+                return TEST_LIST;
+            }
+
+            @Override
+            public CompletableFuture<List<String>> suggestAsync(Class type, CommandInvocation invocation)
+            {
+                return slow;
+            }
+        }, TestParametricSuggestionCommand.TestEnum.class);
+
+        CommandBase val = suggContainer.getCommand("parametricVal");
+        List<String> suggs = val.getSuggestionsAsync(new CommandInvocation(null, " ", scm.getProviders()), 10, 50, TimeUnit.MILLISECONDS).get();
+        assertEquals(Collections.<String>emptyList(), suggs);
+        assertTrue(slow.isCancelled());
+
+        // names are suggested without waiting for the completer
+        CommandBase named = suggContainer.getCommand("parametricNamedVal3");
+        String description = named.getDescriptor().getDescription();
+        suggs = named.getSuggestionsAsync(new CommandInvocation(null, description, scm.getProviders()), 10, 1, TimeUnit.MINUTES).get(1, TimeUnit.SECONDS);
+        assertThat(suggs, Is.is(TEST_LIST));
+    }
+
+    @Test
+    public void testCachedAsyncSuggestions() throws Exception
+    {
+        CountingCompleter completer = new CountingCompleter(TEST_LIST);
+        scm.getProviders().register(this, completer, TestParametricSuggestionCommand.TestEnum.class);
+        SuggestionCache cache = new SuggestionCache(64, 1, TimeUnit.MINUTES);
+        scm.getProviders().setSuggestionCache(cache);
+        CommandBase val = suggContainer.getCommand("parametricVal");
+        for (int i = 0; i < 2; i++)
+        {
+            List<String> suggs = val.getSuggestionsAsync(new CommandInvocation(null, " ", scm.getProviders()), 10, 1, TimeUnit.SECONDS).get();
+            assertThat(suggs, Is.is(TEST_LIST));
+            assertEquals(1, completer.completions());
+            assertEquals(1, cache.size());
+        }
+
+        cache.clear();
+        CountingCompleter volatileCompleter = new CountingVolatileCompleter(TEST_LIST);
+        scm.getProviders().register(this, volatileCompleter, TestParametricSuggestionCommand.TestEnum.class);
+        for (int i = 1; i <= 2; i++)
+        {
+            List<String> suggs = val.getSuggestionsAsync(new CommandInvocation(null, " ", scm.getProviders()), 10, 1, TimeUnit.SECONDS).get();
+            assertThat(suggs, Is.is(TEST_LIST));
+            assertEquals(i, volatileCompleter.completions());
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testStructuralSuggestions() throws Exception
+    {
+        CountingParser parser = new CountingParser();
+        scm.getProviders().register(this, parser, String.class);
+        for (CommandBase command : suggContainer.getCommands())
+        {
+            String description = command.getDescriptor().getDescription();
+            List<String> suggs = command.getSuggestions(new CommandInvocation(null, description, scm.getProviders()));
+            assertThat(suggs, Is.is(TEST_LIST));
+        }
+        assertEquals(0, parser.reads());
+    }
+
+    @Test
+    public void testPrefetchedSuggestions() throws Exception
+    {
+        final List<String> seen = new ArrayList<>();
+        CountingCompleter completer = new CountingCompleter(TEST_LIST)
+        {
+            @Override
+            public List<String> suggest(Class type, CommandInvocation invocation)
+            {
+                seen.add(invocation.getCommandLine());
+                seen.addAll(invocation.getLabels());
+                return super.suggest(type, invocation);
+            }
+        };
+        scm.getProviders().register(this, completer, TestParametricSuggestionCommand.TestEnum.class);
+        SuggestionCache cache = new SuggestionCache(64, 1, TimeUnit.MINUTES);
+        scm.getProviders().setSuggestionCache(cache);
+        scm.getProviders().setSuggestionPrefetcher(new SuggestionPrefetcher(new Executor()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                command.run();
+            }
+        }, 20));
+
+        // the container is reached through a parent labeled "parent"
+        Object source = new Object();
+        CommandInvocation named = new CommandInvocation(source, "parent  parametricVal", scm.getProviders()).subInvocation(suggContainer);
+        assertEquals(asList("parametricval"), suggContainer.getSuggestions(named));
+        assertEquals(1, completer.completions());
+        assertEquals(1, cache.size());
+        assertEquals(asList("parent  parametricVal ", "parent", "parametricVal"), seen);
+
+        CommandInvocation argument = new CommandInvocation(source, "parent  parametricVal ", scm.getProviders()).subInvocation(suggContainer);
+        assertThat(suggContainer.getSuggestions(argument), Is.is(TEST_LIST));
+        assertEquals(1, completer.completions());
+    }
+
+    @Test
+    public void testSupersededSuggestions() throws Exception
+    {
+        final List<CompletableFuture<List<String>>> pending = new ArrayList<>();
+        scm.getProviders().register(this, new Completer()
+        {
+            @Override
+            public List<String> suggest(Class type, CommandInvocation invocation)
+            {
+                return TEST_LIST;
+            }
+
+            @Override
+            public CompletableFuture<List<String>> suggestAsync(Class type, CommandInvocation invocation)
+            {
+                CompletableFuture<List<String>> future = new CompletableFuture<>();
+                pending.add(future);
+                return future;
+            }
+        }, TestParametricSuggestionCommand.TestEnum.class);
+        CommandBase val = suggContainer.getCommand("parametricVal");
+        Object source = new Object();
+
+        CompletableFuture<List<String>> first = suggContainer.getSuggestionsAsync(new CommandInvocation(source, "parametricVal ", scm.getProviders()), 10, 1, TimeUnit.MINUTES);
+        assertEquals(1, pending.size());
+        CompletableFuture<List<String>> second = val.getSuggestionsAsync(new CommandInvocation(source, " ", scm.getProviders()), 10, 1, TimeUnit.MINUTES);
+        assertTrue(first.isCancelled());
+        assertTrue(pending.get(0).isCancelled());
+        assertFalse(second.isDone());
+        pending.get(1).complete(TEST_LIST);
+        assertThat(second.get(1, TimeUnit.SECONDS), Is.is(TEST_LIST));
+
+        assertThat(val.getSuggestions(new CommandInvocation(source, " ", scm.getProviders())), Is.is(TEST_LIST));
+    }
+
+    @Test
+    public void testInterruptedSuggestions() throws Exception
+    {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        try
+        {
+            scm.getProviders().register(this, new Completer()
+            {
+                @Override
+                public List<String> suggest(Class type, CommandInvocation invocation)
+                {
+                    return TEST_LIST;
+                }
+
+                @Override
+                public CompletableFuture<List<String>> suggestAsync(Class type, CommandInvocation invocation)
+                {
+                    return AsyncCompletion.interruptible(new Callable<List<String>>()
+                    {
+                        @Override
+                        public List<String> call() throws Exception
+                        {
+                            started.countDown();
+                            try
+                            {
+                                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                            }
+                            catch (InterruptedException e)
+                            {
+                                interrupted.countDown();
+                            }
+                            return TEST_LIST;
+                        }
+                    }, executor);
+                }
+            }, TestParametricSuggestionCommand.TestEnum.class);
+            final Object source = new Object();
+
+            CompletableFuture<List<String>> slow = suggContainer.getSuggestionsAsync(new CommandInvocation(source, "parametricVal ", scm.getProviders()), 10, 1, TimeUnit.MINUTES);
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            assertEquals(asList("parametricval"), suggContainer.getSuggestions(new CommandInvocation(source, "parametricVal", scm.getProviders())));
+            assertTrue(slow.isCancelled());
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+
+            final CountDownLatch blocking = new CountDownLatch(1);
+            scm.getProviders().register(this, new Completer()
+            {
+                @Override
+                public List<String> suggest(Class type, CommandInvocation invocation)
+                {
+                    return TEST_LIST;
+                }
+
+                @Override
+                public void suggest(Class type, CommandInvocation invocation, SuggestionSink sink)
+                {
+                    blocking.countDown();
+                    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                    while (!sink.isCancelled() && System.nanoTime() < deadline)
+                    {
+                        Thread.yield();
+                    }
+                    sink.addAll(TEST_LIST);
+                }
+            }, TestParametricSuggestionCommand.TestEnum.class);
+            Future<List<String>> blocked = executor.submit(new Callable<List<String>>()
+            {
+                @Override
+                public List<String> call() throws Exception
+                {
+                    return suggContainer.getSuggestions(new CommandInvocation(source, "parametricVal ", scm.getProviders()));
+                }
+            });
+            assertTrue(blocking.await(1, TimeUnit.SECONDS));
+            assertEquals(asList("parametricval"), suggContainer.getSuggestions(new CommandInvocation(source, "parametricVal", scm.getProviders())));
+            assertNull(blocked.get(1, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testArity() throws Exception
+    {
+        final List<Throwable> errors = new ArrayList<>();
+        scm.getProviders().getExceptionHandler().addHandler(new PriorityExceptionHandler()
+        {
+            @Override
+            public int priority()
+            {
+                return 0;
+            }
+
+            @Override
+            public boolean handleException(Throwable e, CommandBase command, CommandInvocation invocation)
+            {
+                errors.add(e);
+                return true;
+            }
+        });
+        CountingParser parser = new CountingParser();
+        scm.getProviders().register(this, parser, TestParametricCommand.TestEnum.class);
+
+        CommandBase command = container.getCommand("parametric2");
+        command.execute(new CommandInvocation(null, "Value1", scm.getProviders()));
+        assertEquals(errors.toString(), 1, errors.size());
+        assertTrue(errors.get(0).toString(), errors.get(0) instanceof TooFewArgumentsException);
+        assertEquals(0, parser.reads());
+
+        // parsers may consume more tokens than their greed
+        CountingParser twoTokens = new CountingParser(2)
+        {
+            @Override
+            public Object parse(Class type, CommandInvocation invocation)
+            {
+                return TestParametricCommand.TestEnum.valueOf(super.parse(type, invocation).toString().toUpperCase());
+            }
+        };
+        scm.getProviders().register(this, twoTokens, TestParametricCommand.TestEnum.class);
+        assertTrue(command.execute(new CommandInvocation(null, "Value1 x Value2 y", scm.getProviders())));
+        assertEquals(errors.toString(), 1, errors.size());
+        assertEquals(2, twoTokens.reads());
+    }
+}
@@ -66,6 +66,14 @@ public class TestParametricCommand extends ParametricContainerCommand
         return true;
     }
 
+    @Command(desc = "Value2")
+    public boolean flagged(BasicCommandContext ctx, @Flag boolean force, TestEnum aEnum)
+    {
+        assertEquals(false, force);
+        assertEquals(aEnum, TestEnum.VALUE2);
+        return true;
+    }
+
     public static class TestGroup implements Group
     {
         public TestEnum group1 = TestEnum.VALUE1;
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ * Copyright © 2014 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.butler.provider;
+
+import java.util.Set;
+import org.cubeengine.butler.parameter.argument.StringParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ProviderTest
+{
+    /**
+     * Counts the scans over the registered types
+     */
+    private static class ScanCountingProvider extends Provider<Object>
+    {
+        private int scans = 0;
+
+        @Override
+        public Set<Class<?>> keys()
+        {
+            scans++;
+            return super.keys();
+        }
+    }
+
+    @Test
+    public void testMemoizedResolve() throws Exception
+    {
+        ScanCountingProvider provider = new ScanCountingProvider();
+        Object owner = new Object();
+        Object number = new Object();
+        provider.register(owner, number, Integer.class);
+
+        assertSame(number, provider.resolve(Integer.class));
+        assertEquals(0, provider.scans);
+
+        assertSame(number, provider.resolve(Number.class));
+        assertSame(number, provider.resolve(Number.class));
+        assertEquals(1, provider.scans);
+
+        assertNull(provider.resolve(Runnable.class));
+        assertNull(provider.resolve(Runnable.class));
+        assertEquals(2, provider.scans);
+    }
+
+    @Test
+    public void testInvalidation() throws Exception
+    {
+        ScanCountingProvider provider = new ScanCountingProvider();
+        Object owner = new Object();
+        Object number = new Object();
+        Object runnable = new Object();
+
+        int generation = provider.getGeneration();
+        assertNull(provider.resolve(Number.class));
+        provider.register(owner, number, Integer.class);
+        assertNotEquals(generation, generation = provider.getGeneration());
+        assertSame(number, provider.resolve(Number.class));
+
+        provider.register(owner, runnable, Runnable.class);
+        assertNotEquals(generation, generation = provider.getGeneration());
+        assertSame(runnable, provider.resolve(Runnable.class));
+
+        assertEquals(true, provider.remove(Integer.class));
+        assertNotEquals(generation, generation = provider.getGeneration());
+        assertNull(provider.resolve(Number.class));
+        assertSame(runnable, provider.resolve(Runnable.class));
+
+        assertEquals(true, provider.removeAll(owner));
+        assertNotEquals(generation, generation = provider.getGeneration());
+        assertNull(provider.resolve(Runnable.class));
+
+        assertEquals(false, provider.remove(Integer.class));
+        assertEquals(generation, provider.getGeneration());
+    }
+
+    @Test
+    public void testProvidersGeneration() throws Exception
+    {
+        Providers providers = new Providers();
+        Object owner = new Object();
+        long generation = providers.getGeneration();
+        providers.register(owner, new StringParser(), CharSequence.class);
+        assertNotEquals(generation, generation = providers.getGeneration());
+        providers.commandsChanged();
+        assertNotEquals(generation, generation = providers.getGeneration());
+        providers.removeAll(owner);
+        assertNotEquals(generation, providers.getGeneration());
+    }
+}